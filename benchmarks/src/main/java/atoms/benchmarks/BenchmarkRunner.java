@@ -0,0 +1,33 @@
+package atoms.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks with the GC profiler, which reports the allocation rate.
+ *
+ * Accepts the same arguments as the JMH runner, for example a regular expression
+ * selecting benchmarks ({@code MoveGeneration}) or {@code -p corpus=cascades}.
+ * Benchmarks report throughput and percentiles of the latency of a single invocation.
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * The entrypoint of benchmarks.
+     * @param args The arguments of the JMH runner.
+     * @throws RunnerException If a benchmark fails.
+     * @throws CommandLineOptionException If the arguments are not valid.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
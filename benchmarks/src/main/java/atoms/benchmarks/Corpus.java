@@ -0,0 +1,103 @@
+package atoms.benchmarks;
+
+import atoms.model.Board;
+import atoms.model.BoardState;
+import atoms.model.ChainReactionResolver;
+import atoms.model.SavedPosition;
+import atoms.model.SquarePosition;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Corpus of saved positions used by benchmarks.
+ *
+ * Corpora are resources in the positions directory, one position per line.
+ * Benchmarks take positions in turns, so that a single invocation measures
+ * one position and the results average over the whole corpus.
+ */
+final class Corpus {
+
+    /**
+     * Loads a corpus from resources.
+     * @param name The name of the corpus, for example {@code cascades}.
+     * @return The corpus.
+     * @throws UncheckedIOException If the corpus cannot be read.
+     * @throws IllegalArgumentException If the corpus does not exist or is empty.
+     */
+    static Corpus load(String name) {
+        String resource = "/positions/" + name + ".txt";
+        try (InputStream stream = Corpus.class.getResourceAsStream(resource)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("Unknown corpus: " + name);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+            return new Corpus(SavedPosition.readAll(reader));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Gets the number of positions.
+     * @return The number of positions.
+     */
+    int size() {
+        return positions.size();
+    }
+
+    /**
+     * Gets a position.
+     * @param index The index of the position.
+     * @return The position.
+     */
+    SavedPosition getPosition(int index) {
+        return positions.get(index);
+    }
+
+    /**
+     * Finds the move of the player on the move that causes the most explosions.
+     * @param index The index of the position.
+     * @return The target square of the move.
+     */
+    SquarePosition findLongestChainReaction(int index) {
+        SavedPosition position = positions.get(index);
+        BoardState state = position.state();
+        Board board = state.getBoard();
+        ChainReactionResolver resolver = new ChainReactionResolver();
+        int bestTarget = -1;
+        int bestExplosionsCount = -1;
+        for (int target = 0; target < board.getSquaresCount(); target++) {
+            int owner = board.getPlayerId(target);
+            if (owner != Board.NO_PLAYER_ID && owner != position.playerId()) {
+                continue;
+            }
+            int explosionsCount = resolver.resolve(board.deepCopy(), target, position.playerId(),
+                    state.getAllElectronCounts().clone(), state.allPlayersMoved());
+            if (explosionsCount > bestExplosionsCount) {
+                bestExplosionsCount = explosionsCount;
+                bestTarget = target;
+            }
+        }
+        return board.getPosition(bestTarget);
+    }
+
+    private final List<SavedPosition> positions;
+
+    /**
+     * Creates a corpus.
+     * @param positions The positions of the corpus.
+     * @throws IllegalArgumentException If there are no positions.
+     */
+    private Corpus(List<SavedPosition> positions) {
+        if (positions.isEmpty()) {
+            throw new IllegalArgumentException("The corpus is empty");
+        }
+        this.positions = positions;
+    }
+}
@@ -0,0 +1,145 @@
+package atoms.benchmarks;
+
+import atoms.model.Bitboard;
+import atoms.model.BitboardMoveGenerator;
+import atoms.model.Board;
+import atoms.model.BoardState;
+import atoms.model.DetailedMove;
+import atoms.model.MoveGenerator;
+import atoms.model.SavedPosition;
+import atoms.model.SquarePosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the move generator.
+ *
+ * Every invocation works with the next position of the corpus. Moves onto
+ * a square are generated for the move that causes the longest chain reaction
+ * in the position, which is the most expensive move to resolve. The same
+ * moves are also generated by the bitboard move generator, all corpora
+ * contain only 8x8 boards with two players, which it supports.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    /**
+     * The name of the corpus of positions.
+     */
+    @Param({"opening", "middlegame", "cascades"})
+    public String corpus;
+
+    /**
+     * Loads the corpus and finds the longest chain reactions.
+     */
+    @Setup(Level.Trial)
+    public void loadCorpus() {
+        Corpus positions = Corpus.load(corpus);
+        states = new BoardState[positions.size()];
+        playerIds = new int[positions.size()];
+        targets = new SquarePosition[positions.size()];
+        bitboards = new Bitboard[positions.size()];
+        targetIndices = new int[positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            SavedPosition position = positions.getPosition(i);
+            states[i] = position.state();
+            playerIds[i] = position.playerId();
+            targets[i] = positions.findLongestChainReaction(i);
+            bitboards[i] = Bitboard.fromBoardState(states[i]);
+            targetIndices[i] = states[i].getBoard().getIndex(targets[i]);
+        }
+    }
+
+    /**
+     * Generates all moves of the player on the move.
+     * @return The generated moves.
+     */
+    @Benchmark
+    public List<BoardState> generateAllMoves() {
+        int i = nextPosition();
+        return MoveGenerator.generateAllMoves(states[i], playerIds[i]);
+    }
+
+    /**
+     * Generates the move with the longest chain reaction.
+     * @return The generated move.
+     */
+    @Benchmark
+    public BoardState generateMove() {
+        int i = nextPosition();
+        return MoveGenerator.generateMove(states[i], playerIds[i], targets[i]);
+    }
+
+    /**
+     * Generates the move with the longest chain reaction including all its phases.
+     * @return The generated move.
+     */
+    @Benchmark
+    public DetailedMove generateDetailedMove() {
+        int i = nextPosition();
+        return MoveGenerator.generateDetailedMove(states[i], playerIds[i], targets[i]);
+    }
+
+    /**
+     * Generates all moves of the player on the move with the bitboard move generator.
+     * @return The generated moves.
+     */
+    @Benchmark
+    public List<Bitboard> generateAllBitboardMoves() {
+        int i = nextPosition();
+        return BitboardMoveGenerator.generateAllMoves(bitboards[i], playerIds[i]);
+    }
+
+    /**
+     * Generates the move with the longest chain reaction with the bitboard move generator.
+     * @return The generated move.
+     */
+    @Benchmark
+    public Bitboard generateBitboardMove() {
+        int i = nextPosition();
+        return BitboardMoveGenerator.generateMove(bitboards[i], playerIds[i], targetIndices[i]);
+    }
+
+    /**
+     * Copies the board.
+     * @return The copy of the board.
+     */
+    @Benchmark
+    public Board deepCopy() {
+        return states[nextPosition()].getBoard().deepCopy();
+    }
+
+    private BoardState[] states;
+    private int[] playerIds;
+    private SquarePosition[] targets;
+    private Bitboard[] bitboards;
+    private int[] targetIndices;
+    private int current;
+
+    /**
+     * Moves to the next position of the corpus.
+     * @return The index of the position.
+     */
+    private int nextPosition() {
+        current = current + 1 == states.length ? 0 : current + 1;
+        return current;
+    }
+}
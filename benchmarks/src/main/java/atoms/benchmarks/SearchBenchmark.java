@@ -0,0 +1,98 @@
+package atoms.benchmarks;
+
+import atoms.model.MinimaxSearch;
+import atoms.model.SavedPosition;
+import atoms.model.SearchLimits;
+import atoms.model.SearchResult;
+import atoms.model.TranspositionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the serial minimax search with a fixed depth, as used by the computer player.
+ *
+ * The transposition table is cleared before every invocation, so that every
+ * search starts from scratch like the first move of the computer player.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+    /**
+     * The name of the corpus of positions.
+     */
+    @Param({"opening", "middlegame", "cascades"})
+    public String corpus;
+
+    /**
+     * The depth of the search.
+     */
+    @Param({"2", "3"})
+    public int depth;
+
+    /**
+     * Loads the corpus and creates the search.
+     */
+    @Setup(Level.Trial)
+    public void createSearch() {
+        positions = Corpus.load(corpus);
+        transpositionTable = new TranspositionTable(
+                TRANSPOSITION_TABLE_SIZE, TranspositionTable.ReplacementPolicy.TWO_TIER);
+        search = new MinimaxSearch(new Random(RANDOM_SEED), transpositionTable, 1);
+        limits = SearchLimits.ofDepth(depth);
+    }
+
+    /**
+     * Clears the transposition table and moves to the next position of the corpus.
+     */
+    @Setup(Level.Invocation)
+    public void nextPosition() {
+        transpositionTable.clear();
+        current = current + 1 == positions.size() ? 0 : current + 1;
+    }
+
+    /**
+     * Searches for the best move of the player on the move.
+     * @return The result of the search.
+     */
+    @Benchmark
+    public SearchResult search() {
+        SavedPosition position = positions.getPosition(current);
+        return search.search(position.state(), position.playerId(), limits);
+    }
+
+    /**
+     * Releases threads of the search.
+     */
+    @TearDown(Level.Trial)
+    public void closeSearch() {
+        search.close();
+    }
+
+    private static final long TRANSPOSITION_TABLE_SIZE = 1L << 20;
+    private static final long RANDOM_SEED = 1;
+
+    private Corpus positions;
+    private TranspositionTable transpositionTable;
+    private MinimaxSearch search;
+    private SearchLimits limits;
+    private int current;
+}
@@ -0,0 +1,7 @@
+/**
+ * Contains JMH benchmarks of the move generator and the search.
+ *
+ * Benchmarks run on corpora of saved positions from the resources, so that
+ * results of different versions of the game are measured on the same positions.
+ */
+package atoms.benchmarks;
@@ -0,0 +1,43 @@
+package atoms.model;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Engine that chooses moves for AI players.
+ */
+public interface AIEngine {
+
+    /**
+     * Searches for the best move of a player.
+     * @param state The current state, it must not be terminal.
+     * @param playerId The ID of the player on the move.
+     * @param limits The limits of the search.
+     * @return The result of the search.
+     */
+    default SearchResult search(BoardState state, int playerId, SearchLimits limits) {
+        return search(state, playerId, limits, () -> false);
+    }
+
+    /**
+     * Searches for the best move of a player until the limits are reached or the stop condition holds.
+     * The condition belongs to this search only, so unlike {@link #stop()} it cannot affect another search.
+     * @param state The current state, it must not be terminal.
+     * @param playerId The ID of the player on the move.
+     * @param limits The limits of the search.
+     * @param stopCondition The condition checked during the search, once it holds the search stops
+     * as soon as it has a move, as if {@link #stop()} was called.
+     * @return The result of the search.
+     */
+    SearchResult search(BoardState state, int playerId, SearchLimits limits, BooleanSupplier stopCondition);
+
+    /**
+     * Asks a running search to stop as soon as possible and return its best move.
+     * If no search is running, the request is kept and the next search stops as soon as it has a move.
+     */
+    void stop();
+
+    /**
+     * Stops the threads of the engine, the engine cannot be used afterwards.
+     */
+    void close();
+}
@@ -0,0 +1,192 @@
+package atoms.model;
+
+/**
+ * State of an 8x8 board for two players stored in bitboards.
+ *
+ * Every square is one bit of a 64-bit mask, the index of the bit is the index
+ * of the square in row-major order. Each player has a mask of owned squares
+ * and the number of electrons on each square is stored in three bit planes,
+ * which is enough for any number of electrons that a square can hold.
+ */
+public final class Bitboard {
+    public static final int SIZE = 8;
+    public static final int PLAYERS_COUNT = 2;
+
+    /**
+     * Checks whether a board state can be represented by a bitboard.
+     * @param state The board state.
+     * @return True if the state can be represented by a bitboard, otherwise false.
+     */
+    public static boolean isSupported(BoardState state) {
+        if (state.getBoard().getSize() != SIZE || state.getAllElectronCounts().length != PLAYERS_COUNT) {
+            return false;
+        }
+        Board board = state.getBoard();
+        for (int index = 0; index < board.getSquaresCount(); index++) {
+            if (board.getElectronsCount(index) > MAX_ELECTRONS_COUNT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a bitboard from a board state.
+     * @param state The board state.
+     * @return The bitboard with the same squares and electron counts.
+     */
+    public static Bitboard fromBoardState(BoardState state) {
+        if (!isSupported(state)) {
+            throw new IllegalArgumentException("Only 8x8 boards with two players are supported");
+        }
+        Board board = state.getBoard();
+        long[] playerSquares = new long[PLAYERS_COUNT];
+        long[] electronBits = new long[ELECTRON_BITS];
+        for (int index = 0; index < board.getSquaresCount(); index++) {
+            long bit = 1L << index;
+            int playerId = board.getPlayerId(index);
+            if (playerId != Board.NO_PLAYER_ID) {
+                playerSquares[playerId] |= bit;
+            }
+            int electronsCount = board.getElectronsCount(index);
+            for (int i = 0; i < ELECTRON_BITS; i++) {
+                if ((electronsCount & (1 << i)) != 0) {
+                    electronBits[i] |= bit;
+                }
+            }
+        }
+        int target = state.getTarget() == null ? NO_TARGET : board.getIndex(state.getTarget());
+        return new Bitboard(
+                playerSquares[0], playerSquares[1],
+                electronBits[0], electronBits[1], electronBits[2],
+                state.getElectronsCount(0), state.getElectronsCount(1),
+                target);
+    }
+
+    /**
+     * Converts the bitboard to a board state.
+     * @return The board state with the same squares and electron counts.
+     */
+    public BoardState toBoardState() {
+        Board board = new Board(SIZE);
+        for (int index = 0; index < SIZE * SIZE; index++) {
+            int electronsCount = getElectronsCount(index);
+            if (electronsCount > 0) {
+                board.setSquare(index, getPlayerId(index), electronsCount);
+            }
+        }
+        SquarePosition origin = target == NO_TARGET ? null : board.getPosition(target);
+        return new BoardState(board, origin, new int[] { firstPlayerElectrons, secondPlayerElectrons });
+    }
+
+    /**
+     * Gets the mask of squares owned by a player.
+     * @param playerId The ID of the player.
+     * @return The mask of squares owned by the player.
+     */
+    public long getPlayerSquares(int playerId) {
+        return playerId == 0 ? firstPlayerSquares : secondPlayerSquares;
+    }
+
+    /**
+     * Gets the ID of the player that owns the square with the given index.
+     * @param index The index of the square.
+     * @return The ID of the player that owns the square.
+     */
+    public int getPlayerId(int index) {
+        long bit = 1L << index;
+        if ((firstPlayerSquares & bit) != 0) {
+            return 0;
+        } else if ((secondPlayerSquares & bit) != 0) {
+            return 1;
+        }
+        return Board.NO_PLAYER_ID;
+    }
+
+    /**
+     * Gets the number of electrons on the square with the given index.
+     * @param index The index of the square.
+     * @return The number of electrons on the square.
+     */
+    public int getElectronsCount(int index) {
+        return (int)((electronBits0 >>> index) & 1)
+                | (int)((electronBits1 >>> index) & 1) << 1
+                | (int)((electronBits2 >>> index) & 1) << 2;
+    }
+
+    /**
+     * Gets the number of electrons of a player.
+     * @param playerId The ID of the player.
+     * @return The number of electrons of the player.
+     */
+    public int getPlayerElectronsCount(int playerId) {
+        return playerId == 0 ? firstPlayerElectrons : secondPlayerElectrons;
+    }
+
+    /**
+     * Gets the index of the square targeted by the move that caused this state.
+     * @return The index of the targeted square, or a negative number for the initial state.
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * Checks if all players have made a move.
+     * @return An indicator whether all players have made a move.
+     */
+    public boolean allPlayersMoved() {
+        return firstPlayerElectrons + secondPlayerElectrons >= PLAYERS_COUNT;
+    }
+
+    /**
+     * Checks whether the state is terminal (a player won).
+     * @return An indicator whether the state is terminal (a player won).
+     */
+    public boolean isTerminal() {
+        return allPlayersMoved() && (firstPlayerElectrons == 0 || secondPlayerElectrons == 0);
+    }
+
+    static final int NO_TARGET = -1;
+    static final int ELECTRON_BITS = 3;
+    static final int MAX_ELECTRONS_COUNT = (1 << ELECTRON_BITS) - 1;
+
+    final long firstPlayerSquares;
+    final long secondPlayerSquares;
+    final long electronBits0;
+    final long electronBits1;
+    final long electronBits2;
+    final int firstPlayerElectrons;
+    final int secondPlayerElectrons;
+    final int target;
+
+    /**
+     * Creates a bitboard.
+     * @param firstPlayerSquares The mask of squares owned by the first player.
+     * @param secondPlayerSquares The mask of squares owned by the second player.
+     * @param electronBits0 The lowest bit plane of electron counts.
+     * @param electronBits1 The middle bit plane of electron counts.
+     * @param electronBits2 The highest bit plane of electron counts.
+     * @param firstPlayerElectrons The number of electrons of the first player.
+     * @param secondPlayerElectrons The number of electrons of the second player.
+     * @param target The index of the square targeted by the move that caused this state.
+     */
+    Bitboard(
+            long firstPlayerSquares,
+            long secondPlayerSquares,
+            long electronBits0,
+            long electronBits1,
+            long electronBits2,
+            int firstPlayerElectrons,
+            int secondPlayerElectrons,
+            int target) {
+        this.firstPlayerSquares = firstPlayerSquares;
+        this.secondPlayerSquares = secondPlayerSquares;
+        this.electronBits0 = electronBits0;
+        this.electronBits1 = electronBits1;
+        this.electronBits2 = electronBits2;
+        this.firstPlayerElectrons = firstPlayerElectrons;
+        this.secondPlayerElectrons = secondPlayerElectrons;
+        this.target = target;
+    }
+}
@@ -0,0 +1,179 @@
+package atoms.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generator for moves on 8x8 boards with two players using bitboards.
+ *
+ * Explosions are resolved in waves. All squares that reached their critical
+ * mass explode at the same time, and the electrons they send to neighbours
+ * are added to the bit planes of electron counts by shifting the mask of
+ * explosions in all four directions. The stable board after a chain reaction
+ * does not depend on the order of explosions, so the generated states are the
+ * same as the ones from {@link MoveGenerator}. The only exception are moves
+ * that capture all squares of the opponent, where the chain reaction is stopped
+ * early and the remaining electrons may be distributed differently.
+ */
+public final class BitboardMoveGenerator {
+
+    /**
+     * Generates all moves for a player.
+     * @param state The initial state.
+     * @param playerId The ID of the player making the move.
+     * @return The list of all possible moves.
+     */
+    public static List<Bitboard> generateAllMoves(Bitboard state, int playerId) {
+        long targets = ~state.getPlayerSquares(1 - playerId);
+        List<Bitboard> states = new ArrayList<>(Long.bitCount(targets));
+        boolean allPlayersMoved = state.allPlayersMoved();
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            states.add(createNextBitboard(state, target, playerId, allPlayersMoved));
+        }
+        return states;
+    }
+
+    /**
+     * Generates all moves for a player, see {@link MoveGenerator#generateAllMoves(BoardState, int)}.
+     * @param state The initial state, it must be supported by {@link Bitboard}.
+     * @param playerId The ID of the player making the move.
+     * @return The list of all possible moves.
+     */
+    public static List<BoardState> generateAllMoves(BoardState state, int playerId) {
+        List<Bitboard> bitboards = generateAllMoves(Bitboard.fromBoardState(state), playerId);
+        List<BoardState> states = new ArrayList<>(bitboards.size());
+        for (Bitboard bitboard : bitboards) {
+            states.add(bitboard.toBoardState());
+        }
+        return states;
+    }
+
+    /**
+     * Generates a move of a player.
+     * @param state The initial state.
+     * @param playerId The ID of the player making the move.
+     * @param target The index of the chosen square.
+     * @return The generated move, or null if the player cannot target the square.
+     */
+    public static Bitboard generateMove(Bitboard state, int playerId, int target) {
+        if ((state.getPlayerSquares(1 - playerId) & (1L << target)) != 0) {
+            return null;
+        }
+        return createNextBitboard(state, target, playerId, state.allPlayersMoved());
+    }
+
+    /**
+     * Generates a move of a player, see {@link MoveGenerator#generateMove(BoardState, int, SquarePosition)}.
+     * @param state The initial state, it must be supported by {@link Bitboard}.
+     * @param playerId The ID of the player making the move.
+     * @param target The chosen square.
+     * @return The generated move, or null if the player cannot target the square.
+     */
+    public static BoardState generateMove(BoardState state, int playerId, SquarePosition target) {
+        int index = state.getBoard().getIndex(target);
+        Bitboard nextState = generateMove(Bitboard.fromBoardState(state), playerId, index);
+        return nextState == null ? null : nextState.toBoardState();
+    }
+
+    private static final long FIRST_COLUMN = 0x0101010101010101L;
+    private static final long LAST_COLUMN = FIRST_COLUMN << (Bitboard.SIZE - 1);
+    private static final long FIRST_ROW = 0xFFL;
+    private static final long LAST_ROW = FIRST_ROW << (Bitboard.SIZE * (Bitboard.SIZE - 1));
+    private static final long BORDER = FIRST_COLUMN | LAST_COLUMN | FIRST_ROW | LAST_ROW;
+    private static final long CORNERS = (FIRST_COLUMN | LAST_COLUMN) & (FIRST_ROW | LAST_ROW);
+    private static final long EDGES = BORDER & ~CORNERS;
+    private static final long INNER_SQUARES = ~BORDER;
+
+    /**
+     * Creates the next state by adding an electron to a square and resolving the chain reaction.
+     * @param state The initial state.
+     * @param target The index of the chosen square.
+     * @param playerId The ID of the player making the move.
+     * @param allPlayersMoved An indicator whether all players have made a move.
+     * @return The next state.
+     */
+    private static Bitboard createNextBitboard(Bitboard state, int target, int playerId, boolean allPlayersMoved) {
+        long playerSquares = state.getPlayerSquares(playerId);
+        long opponentSquares = state.getPlayerSquares(1 - playerId);
+        long bits0 = state.electronBits0;
+        long bits1 = state.electronBits1;
+        long bits2 = state.electronBits2;
+
+        // Add the electron of the move
+        long targetBit = 1L << target;
+        long carry0 = bits0 & targetBit;
+        bits0 ^= targetBit;
+        long carry1 = bits1 & carry0;
+        bits1 ^= carry0;
+        bits2 ^= carry1;
+        playerSquares |= targetBit;
+
+        while (!(allPlayersMoved && opponentSquares == 0)) {
+            long explosions = (CORNERS & (bits1 | bits2))
+                    | (EDGES & (bits2 | (bits1 & bits0)))
+                    | (INNER_SQUARES & bits2);
+            if (explosions == 0) {
+                break;
+            }
+
+            // Remove the critical mass from exploding squares: 4 from inner squares,
+            // 2 from corners and 2 + 1 from edges
+            bits2 &= ~(explosions & INNER_SQUARES);
+            long minusTwo = explosions & BORDER;
+            long borrow = ~bits1 & minusTwo;
+            bits1 ^= minusTwo;
+            bits2 ^= borrow;
+            long minusOne = explosions & EDGES;
+            long borrow0 = ~bits0 & minusOne;
+            bits0 ^= minusOne;
+            long borrow1 = ~bits1 & borrow0;
+            bits1 ^= borrow0;
+            bits2 ^= borrow1;
+
+            // Send one electron from each explosion in every direction
+            long fromBelow = explosions >>> Bitboard.SIZE;
+            long fromAbove = explosions << Bitboard.SIZE;
+            long fromLeft = (explosions << 1) & ~FIRST_COLUMN;
+            long fromRight = (explosions >>> 1) & ~LAST_COLUMN;
+            long touched = explosions | fromBelow | fromAbove | fromLeft | fromRight;
+
+            // Count incoming electrons of each square (0 to 4) in three bit planes
+            long verticalSum0 = fromBelow ^ fromAbove;
+            long verticalSum1 = fromBelow & fromAbove;
+            long horizontalSum0 = fromLeft ^ fromRight;
+            long horizontalSum1 = fromLeft & fromRight;
+            long incoming0 = verticalSum0 ^ horizontalSum0;
+            long incomingCarry = verticalSum0 & horizontalSum0;
+            long incoming1 = verticalSum1 ^ horizontalSum1 ^ incomingCarry;
+            long incoming2 = (verticalSum1 & horizontalSum1) | (incomingCarry & (verticalSum1 ^ horizontalSum1));
+
+            // Add incoming electrons to the bit planes
+            carry0 = bits0 & incoming0;
+            bits0 ^= incoming0;
+            carry1 = (bits1 & incoming1) | (carry0 & (bits1 ^ incoming1));
+            bits1 ^= incoming1 ^ carry0;
+            bits2 ^= incoming2 ^ carry1;
+
+            long occupied = bits0 | bits1 | bits2;
+            playerSquares = (playerSquares | touched) & occupied;
+            opponentSquares &= ~touched;
+        }
+
+        int opponentElectrons = Long.bitCount(opponentSquares & bits0)
+                + 2 * Long.bitCount(opponentSquares & bits1)
+                + 4 * Long.bitCount(opponentSquares & bits2);
+        int totalElectrons = state.firstPlayerElectrons + state.secondPlayerElectrons + 1;
+        int playerElectrons = totalElectrons - opponentElectrons;
+        if (playerId == 0) {
+            return new Bitboard(
+                    playerSquares, opponentSquares, bits0, bits1, bits2,
+                    playerElectrons, opponentElectrons, target);
+        } else {
+            return new Bitboard(
+                    opponentSquares, playerSquares, bits0, bits1, bits2,
+                    opponentElectrons, playerElectrons, target);
+        }
+    }
+}
@@ -2,6 +2,11 @@ package atoms.model;
 
 /**
  * Board for the Exploding Atoms game.
+ *
+ * Squares are packed into a flat array of integers indexed in row-major order,
+ * so that copying and modifying a board does not allocate an object per square.
+ * Each integer holds the ID of the owner in the lowest bits and the number
+ * of electrons in the remaining bits.
  */
 public final class Board {
     public static final int NO_PLAYER_ID = -1;
@@ -11,21 +16,21 @@ public final class Board {
      * @param size The size of the board.
      */
     public Board(int size) {
-        squares = new Square[size][];
-        for (int i = 0; i < size; i++) {
-            squares[i] = new Square[size];
-            for (int j = 0; j < size; j++) {
-                squares[i][j] = new Square(NO_PLAYER_ID, 0);
-            }
-        }
+        this.size = size;
+        geometry = BoardGeometry.of(size);
+        // An empty square is packed as zero
+        cells = new int[size * size];
     }
 
     /**
-     * Creates a board with the given squares.
-     * @param squares
+     * Creates a board with the given packed squares.
+     * @param geometry The geometry of the board.
+     * @param cells The packed squares.
      */
-    private Board(Square[][] squares) {
-        this.squares = squares;
+    private Board(BoardGeometry geometry, int[] cells) {
+        this.size = geometry.getSize();
+        this.geometry = geometry;
+        this.cells = cells;
     }
 
     /**
@@ -35,7 +40,8 @@ public final class Board {
      * @return The square at the given position.
      */
     public Square getSquare(int row, int column) {
-        return squares[row][column];
+        int cell = cells[getIndex(row, column)];
+        return new Square(unpackPlayerId(cell), unpackElectronsCount(cell));
     }
 
     /**
@@ -44,7 +50,7 @@ public final class Board {
      * @return The square at the given position.
      */
     public Square getSquare(SquarePosition position) {
-        return squares[position.row()][position.column()];
+        return getSquare(position.row(), position.column());
     }
 
     /**
@@ -53,7 +59,63 @@ public final class Board {
      * @param square The new square.
      */
     public void setSquare(SquarePosition position, Square square) {
-        squares[position.row()][position.column()] = square;
+        setSquare(getIndex(position), square.playerId(), square.electronsCount());
+    }
+
+    /**
+     * Gets the ID of the player that owns the square with the given index.
+     * @param index The index of the square.
+     * @return The ID of the player that owns the square.
+     */
+    public int getPlayerId(int index) {
+        return unpackPlayerId(cells[index]);
+    }
+
+    /**
+     * Gets the number of electrons on the square with the given index.
+     * @param index The index of the square.
+     * @return The number of electrons on the square.
+     */
+    public int getElectronsCount(int index) {
+        return unpackElectronsCount(cells[index]);
+    }
+
+    /**
+     * Sets the square with the given index.
+     * @param index The index of the square.
+     * @param playerId The ID of the player that owns the square.
+     * @param electronsCount The number of electrons on the square.
+     */
+    public void setSquare(int index, int playerId, int electronsCount) {
+        cells[index] = packSquare(playerId, electronsCount);
+    }
+
+    /**
+     * Gets the index of a square with the given coordinates.
+     * @param row The row.
+     * @param column The column.
+     * @return The index of the square.
+     */
+    public int getIndex(int row, int column) {
+        return row * size + column;
+    }
+
+    /**
+     * Gets the index of a square at the given position.
+     * @param position The position of the square.
+     * @return The index of the square.
+     */
+    public int getIndex(SquarePosition position) {
+        return getIndex(position.row(), position.column());
+    }
+
+    /**
+     * Gets the position of a square with the given index.
+     * @param index The index of the square.
+     * @return The position of the square.
+     */
+    public SquarePosition getPosition(int index) {
+        return new SquarePosition(index / size, index % size);
     }
 
     /**
@@ -61,7 +123,49 @@ public final class Board {
      * @return The size of the board.
      */
     public int getSize() {
-        return squares.length;
+        return size;
+    }
+
+    /**
+     * Gets the precomputed tables for boards of this size.
+     * @return The geometry of the board.
+     */
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Gets the number of squares on the board.
+     * @return The number of squares on the board.
+     */
+    public int getSquaresCount() {
+        return cells.length;
+    }
+
+    /**
+     * Checks whether the board does not change under a symmetry.
+     * @param symmetry The number of the symmetry, see {@link BoardGeometry#getSymmetricSquare(int, int)}.
+     * @return True if every square equals its image under the symmetry, otherwise false.
+     */
+    public boolean isSymmetric(int symmetry) {
+        for (int index = 0; index < cells.length; index++) {
+            if (cells[index] != cells[geometry.getSymmetricSquare(symmetry, index)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the Zobrist hash of the board from scratch, it equals the hash kept by {@link Position}.
+     * @return The Zobrist hash of the board.
+     */
+    public long computeHash() {
+        long hash = 0;
+        for (int index = 0; index < cells.length; index++) {
+            hash ^= geometry.getSquareKey(index, cells[index]);
+        }
+        return hash;
     }
 
     /**
@@ -69,12 +173,67 @@ public final class Board {
      * @return A deep copy of the board.
      */
     public Board deepCopy() {
-        Square[][] copySquares = new Square[squares.length][];
-        for (int i = 0; i < squares.length; i++) {
-            copySquares[i] = squares[i].clone();
-        }
-        return new Board(copySquares);
+        return new Board(geometry, cells.clone());
     }
 
-    private final Square[][] squares;
+    /**
+     * Overwrites the squares of this board with the squares of another board of the same size.
+     * @param other The board to copy from.
+     */
+    public void copyFrom(Board other) {
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+    }
+
+    /**
+     * Gets the packed square with the given index.
+     * @param index The index of the square.
+     * @return The packed square.
+     */
+    int getPackedSquare(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Sets the packed square with the given index.
+     * @param index The index of the square.
+     * @param packedSquare The packed square.
+     */
+    void setPackedSquare(int index, int packedSquare) {
+        cells[index] = packedSquare;
+    }
+
+    /**
+     * Packs a square into an integer.
+     * @param playerId The ID of the player that owns the square.
+     * @param electronsCount The number of electrons on the square.
+     * @return The packed square.
+     */
+    static int packSquare(int playerId, int electronsCount) {
+        return (electronsCount << PLAYER_BITS) | (playerId + 1);
+    }
+
+    /**
+     * Gets the ID of the owner from a packed square.
+     * @param packedSquare The packed square.
+     * @return The ID of the player that owns the square.
+     */
+    static int unpackPlayerId(int packedSquare) {
+        return (packedSquare & PLAYER_MASK) - 1;
+    }
+
+    /**
+     * Gets the number of electrons from a packed square.
+     * @param packedSquare The packed square.
+     * @return The number of electrons on the square.
+     */
+    static int unpackElectronsCount(int packedSquare) {
+        return packedSquare >>> PLAYER_BITS;
+    }
+
+    private static final int PLAYER_BITS = 8;
+    private static final int PLAYER_MASK = (1 << PLAYER_BITS) - 1;
+
+    private final int size;
+    private final BoardGeometry geometry;
+    private final int[] cells;
 }
@@ -0,0 +1,268 @@
+package atoms.model;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Precomputed tables describing the squares of a board of a given size.
+ *
+ * Neighbours of each square are stored in a flat array with a fixed number
+ * of slots per square, in the same order in which explosions spread
+ * (up, down, left, right). The critical mass of a square equals the number
+ * of its neighbours. Tables are shared by all boards of the same size.
+ *
+ * The geometry also contains random keys for Zobrist hashing of squares,
+ * where the hash of a board is the XOR of keys of all its squares.
+ * The keys are generated from a fixed seed, so hashes are the same in every run.
+ *
+ * The square board has eight symmetries (rotations and reflections). The geometry
+ * maps every square to its image under each symmetry, symmetry zero is the identity.
+ */
+public final class BoardGeometry {
+    public static final int MAX_NEIGHBOURS = 4;
+    public static final int MAX_PLAYERS_COUNT = 4;
+    public static final int SYMMETRIES_COUNT = 8;
+    public static final int IDENTITY = 0;
+
+    /**
+     * Gets the geometry of boards with the given size.
+     * @param size The size of the board.
+     * @return The geometry of boards with the given size.
+     */
+    public static BoardGeometry of(int size) {
+        return geometries.computeIfAbsent(size, BoardGeometry::new);
+    }
+
+    /**
+     * Gets the size of the board.
+     * @return The size of the board.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of squares on the board.
+     * @return The number of squares on the board.
+     */
+    public int getSquaresCount() {
+        return criticalMasses.length;
+    }
+
+    /**
+     * Gets the number of electrons that make the square with the given index explode.
+     * @param index The index of the square.
+     * @return The critical mass of the square.
+     */
+    public int getCriticalMass(int index) {
+        return criticalMasses[index];
+    }
+
+    /**
+     * Gets a neighbour of a square.
+     * @param index The index of the square.
+     * @param k The number of the neighbour, lower than the critical mass of the square.
+     * @return The index of the neighbour.
+     */
+    public int getNeighbour(int index, int k) {
+        return neighbours[index * MAX_NEIGHBOURS + k];
+    }
+
+    /**
+     * Gets the image of a square under a symmetry of the board.
+     * @param symmetry The number of the symmetry, lower than SYMMETRIES_COUNT.
+     * @param index The index of the square.
+     * @return The index of the image of the square.
+     */
+    public int getSymmetricSquare(int symmetry, int index) {
+        return symmetricSquares[symmetry * criticalMasses.length + index];
+    }
+
+    /**
+     * Gets the symmetry that reverts another symmetry.
+     * @param symmetry The number of the symmetry.
+     * @return The number of the inverse symmetry.
+     */
+    public int getInverseSymmetry(int symmetry) {
+        return inverseSymmetries[symmetry];
+    }
+
+    /**
+     * Gets the Zobrist key of a square.
+     * An empty square has the key zero, so the hash of an empty board is zero.
+     * @param index The index of the square.
+     * @param packedSquare The packed square.
+     * @return The Zobrist key of the square.
+     */
+    public long getSquareKey(int index, int packedSquare) {
+        return squareKeys[getSquareKeyIndex(index, packedSquare)];
+    }
+
+    /**
+     * Gets the offset of the Zobrist keys of a square under all symmetries,
+     * so that hashes of symmetric boards can be updated together.
+     * @param index The index of the square.
+     * @param packedSquare The packed square.
+     * @return The offset of the keys, the key under a symmetry is at the offset plus the symmetry.
+     */
+    int getSymmetricSquareKeysOffset(int index, int packedSquare) {
+        return getSquareKeyIndex(index, packedSquare) * SYMMETRIES_COUNT;
+    }
+
+    /**
+     * Gets a Zobrist key of a square under a symmetry.
+     * @param offset The offset of the keys of the square plus the symmetry.
+     * @return The key of the image of the square under the symmetry.
+     */
+    long getSymmetricSquareKey(int offset) {
+        return symmetricSquareKeys[offset];
+    }
+
+    /**
+     * Gets the Zobrist key of the player on the move.
+     * @param playerId The ID of the player on the move.
+     * @return The Zobrist key of the player.
+     */
+    public long getPlayerKey(int playerId) {
+        return playerKeys[playerId];
+    }
+
+    /**
+     * Gets the Zobrist key of the player whose view a search takes, for searches
+     * where the values of positions depend on the player at the root.
+     * @param playerId The ID of the player.
+     * @return The Zobrist key of the view of the player.
+     */
+    public long getPerspectiveKey(int playerId) {
+        return perspectiveKeys[playerId];
+    }
+
+    private static final ConcurrentMap<Integer, BoardGeometry> geometries = new ConcurrentHashMap<>();
+    // Squares hold less electrons than their critical mass after a chain reaction,
+    // larger counts share keys
+    private static final int ELECTRON_KEYS_COUNT = 8;
+    private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+
+    private final int size;
+    private final int[] criticalMasses;
+    private final int[] neighbours;
+    private final long[] squareKeys;
+    private final long[] playerKeys;
+    private final long[] perspectiveKeys;
+    private final int[] symmetricSquares;
+    private final long[] symmetricSquareKeys;
+    private final int[] inverseSymmetries;
+
+    /**
+     * Creates the geometry of boards with the given size.
+     * @param size The size of the board.
+     */
+    private BoardGeometry(int size) {
+        this.size = size;
+        int squaresCount = size * size;
+        criticalMasses = new int[squaresCount];
+        neighbours = new int[squaresCount * MAX_NEIGHBOURS];
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                int index = row * size + column;
+                int count = 0;
+                if (row > 0) {
+                    neighbours[index * MAX_NEIGHBOURS + count++] = index - size;
+                }
+                if (row < size - 1) {
+                    neighbours[index * MAX_NEIGHBOURS + count++] = index + size;
+                }
+                if (column > 0) {
+                    neighbours[index * MAX_NEIGHBOURS + count++] = index - 1;
+                }
+                if (column < size - 1) {
+                    neighbours[index * MAX_NEIGHBOURS + count++] = index + 1;
+                }
+                criticalMasses[index] = count;
+            }
+        }
+        SplittableRandom random = new SplittableRandom(ZOBRIST_SEED + size);
+        squareKeys = new long[squaresCount * ELECTRON_KEYS_COUNT * (MAX_PLAYERS_COUNT + 1)];
+        for (int i = 0; i < squareKeys.length; i++) {
+            squareKeys[i] = random.nextLong();
+        }
+        // Empty squares do not change the hash
+        for (int index = 0; index < squaresCount; index++) {
+            squareKeys[index * ELECTRON_KEYS_COUNT * (MAX_PLAYERS_COUNT + 1)] = 0;
+        }
+        playerKeys = new long[MAX_PLAYERS_COUNT];
+        for (int i = 0; i < playerKeys.length; i++) {
+            playerKeys[i] = random.nextLong();
+        }
+        // Generated after all other keys, so that the other keys do not change
+        perspectiveKeys = new long[MAX_PLAYERS_COUNT];
+        for (int i = 0; i < perspectiveKeys.length; i++) {
+            perspectiveKeys[i] = random.nextLong();
+        }
+        symmetricSquares = new int[SYMMETRIES_COUNT * squaresCount];
+        for (int symmetry = 0; symmetry < SYMMETRIES_COUNT; symmetry++) {
+            for (int index = 0; index < squaresCount; index++) {
+                symmetricSquares[symmetry * squaresCount + index] = transformSquare(symmetry, index);
+            }
+        }
+        // Keys of images of a square under all symmetries are stored next to each other
+        symmetricSquareKeys = new long[squareKeys.length * SYMMETRIES_COUNT];
+        int keysPerSquare = ELECTRON_KEYS_COUNT * (MAX_PLAYERS_COUNT + 1);
+        for (int index = 0; index < squaresCount; index++) {
+            for (int key = 0; key < keysPerSquare; key++) {
+                for (int symmetry = 0; symmetry < SYMMETRIES_COUNT; symmetry++) {
+                    int symmetricIndex = getSymmetricSquare(symmetry, index);
+                    symmetricSquareKeys[(index * keysPerSquare + key) * SYMMETRIES_COUNT + symmetry] =
+                            squareKeys[symmetricIndex * keysPerSquare + key];
+                }
+            }
+        }
+        inverseSymmetries = new int[SYMMETRIES_COUNT];
+        for (int symmetry = SYMMETRIES_COUNT - 1; symmetry >= 0; symmetry--) {
+            for (int inverse = SYMMETRIES_COUNT - 1; inverse >= 0; inverse--) {
+                boolean reverts = true;
+                for (int index = 0; index < squaresCount && reverts; index++) {
+                    reverts = getSymmetricSquare(inverse, getSymmetricSquare(symmetry, index)) == index;
+                }
+                if (reverts) {
+                    inverseSymmetries[symmetry] = inverse;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the index of the Zobrist key of a square.
+     * @param index The index of the square.
+     * @param packedSquare The packed square.
+     * @return The index of the key in the table of keys.
+     */
+    private static int getSquareKeyIndex(int index, int packedSquare) {
+        int owner = Board.unpackPlayerId(packedSquare) + 1;
+        int electronsCount = Board.unpackElectronsCount(packedSquare) & (ELECTRON_KEYS_COUNT - 1);
+        return (index * ELECTRON_KEYS_COUNT + electronsCount) * (MAX_PLAYERS_COUNT + 1) + owner;
+    }
+
+    /**
+     * Computes the image of a square under a symmetry of the board.
+     * @param symmetry The number of the symmetry.
+     * @param index The index of the square.
+     * @return The index of the image of the square.
+     */
+    private int transformSquare(int symmetry, int index) {
+        int last = size - 1;
+        int row = index / size;
+        int column = index % size;
+        return switch (symmetry) {
+            case 0 -> row * size + column;
+            case 1 -> column * size + (last - row);
+            case 2 -> (last - row) * size + (last - column);
+            case 3 -> (last - column) * size + row;
+            case 4 -> row * size + (last - column);
+            case 5 -> (last - row) * size + column;
+            case 6 -> column * size + row;
+            default -> (last - column) * size + (last - row);
+        };
+    }
+}
@@ -34,11 +34,7 @@ public class BoardState {
      * @return An indicator whether all players have made a move.
      */
     public boolean allPlayersMoved() {
-        int totalElectronsCount = 0;
-        for (int playerElectrons : electronCounts) {
-            totalElectronsCount += playerElectrons;
-        }
-        return totalElectronsCount >= electronCounts.length;
+        return allPlayersMoved(electronCounts);
     }
 
     /**
@@ -46,18 +42,34 @@ public class BoardState {
      * @return An indicator whether the state is terminal (a player won).
      */
     public boolean isTerminal() {
-        int totalElectronsCount = 0;
-        int playersAlive = 0;
-        for (int playerElectrons : electronCounts) {
-            if (playerElectrons > 0) {
-                if (playersAlive > 0) {
-                    return false;
-                }
-                playersAlive++;
-                totalElectronsCount += playerElectrons;
-            }
-        }
-        return totalElectronsCount >= electronCounts.length;
+        return isTerminal(electronCounts);
+    }
+
+    /**
+     * Checks whether a player lost all electrons after all players made a move,
+     * such a player is out of the game.
+     * @param playerId The ID of the player.
+     * @return An indicator whether the player is out of the game.
+     */
+    public boolean isEliminated(int playerId) {
+        return isEliminated(electronCounts, playerId);
+    }
+
+    /**
+     * Gets the ID of the player who is on the move after the given player, players out of the game are skipped.
+     * @param playerId The ID of the player who made the move that caused this state.
+     * @return The ID of the player on the move.
+     */
+    public int getNextPlayerId(int playerId) {
+        return getNextPlayerId(electronCounts, playerId);
+    }
+
+    /**
+     * Gets the number of players.
+     * @return The number of players.
+     */
+    public int getPlayersCount() {
+        return electronCounts.length;
     }
 
     /**
@@ -93,6 +105,67 @@ public class BoardState {
         return board;
     }
 
+    /**
+     * Checks if all players have made a move.
+     * @param electronCounts The number of electrons of each player.
+     * @return An indicator whether all players have made a move.
+     */
+    static boolean allPlayersMoved(int[] electronCounts) {
+        int totalElectronsCount = 0;
+        for (int playerElectrons : electronCounts) {
+            totalElectronsCount += playerElectrons;
+        }
+        return totalElectronsCount >= electronCounts.length;
+    }
+
+    /**
+     * Checks whether a state with the given electron counts is terminal (a player won).
+     * @param electronCounts The number of electrons of each player.
+     * @return An indicator whether the state is terminal (a player won).
+     */
+    static boolean isTerminal(int[] electronCounts) {
+        int totalElectronsCount = 0;
+        int playersAlive = 0;
+        for (int playerElectrons : electronCounts) {
+            if (playerElectrons > 0) {
+                if (playersAlive > 0) {
+                    return false;
+                }
+                playersAlive++;
+                totalElectronsCount += playerElectrons;
+            }
+        }
+        return totalElectronsCount >= electronCounts.length;
+    }
+
+    /**
+     * Checks whether a player lost all electrons after all players made a move.
+     * @param electronCounts The number of electrons of each player.
+     * @param playerId The ID of the player.
+     * @return An indicator whether the player is out of the game.
+     */
+    static boolean isEliminated(int[] electronCounts, int playerId) {
+        return electronCounts[playerId] == 0 && allPlayersMoved(electronCounts);
+    }
+
+    /**
+     * Gets the ID of the player who is on the move after the given player, players out of the game are skipped.
+     * No square can explode in the first round, so a player without electrons in the first round
+     * is only waiting for their first move.
+     * @param electronCounts The number of electrons of each player.
+     * @param playerId The ID of the player who made the last move.
+     * @return The ID of the player on the move.
+     */
+    static int getNextPlayerId(int[] electronCounts, int playerId) {
+        int playersCount = electronCounts.length;
+        boolean allPlayersMoved = allPlayersMoved(electronCounts);
+        int nextPlayerId = (playerId + 1) % playersCount;
+        while (allPlayersMoved && electronCounts[nextPlayerId] == 0 && nextPlayerId != playerId) {
+            nextPlayerId = (nextPlayerId + 1) % playersCount;
+        }
+        return nextPlayerId;
+    }
+
     private final Board board;
     private final SquarePosition origin;
     private final int[] electronCounts;
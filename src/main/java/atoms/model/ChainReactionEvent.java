@@ -0,0 +1,41 @@
+package atoms.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a long chain reaction.
+ *
+ * The event is committed only for chain reactions with at least
+ * {@link #MIN_EXPLOSIONS_COUNT} explosions, so short chain reactions,
+ * which are resolved millions of times by the search, cost only a check.
+ */
+@Name("atoms.ChainReaction")
+@Label("Chain Reaction")
+@Category({"Exploding Atoms", "Move Generation"})
+@Description("A chain reaction with many explosions caused by a single move")
+final class ChainReactionEvent extends jdk.jfr.Event {
+    static final int MIN_EXPLOSIONS_COUNT = 16;
+
+    @Label("Player")
+    @Description("The ID of the player making the move")
+    int playerId;
+
+    @Label("Target")
+    @Description("The index of the chosen square")
+    int target;
+
+    @Label("Explosions")
+    @Description("The number of explosions, the length of the chain reaction")
+    int explosionsCount;
+
+    @Label("Affected Squares")
+    @Description("The number of distinct squares that received an electron")
+    int affectedSquaresCount;
+
+    @Label("Captured Squares")
+    @Description("The number of squares taken from other players")
+    int capturedSquaresCount;
+}
@@ -0,0 +1,165 @@
+package atoms.model;
+
+/**
+ * Resolves chain reactions of explosions caused by adding an electron to a square.
+ *
+ * Electrons waiting to be added to squares are kept in a ring buffer of square
+ * indices that is reused between moves, and neighbours and critical masses
+ * are taken from precomputed tables. Once the buffer is large enough for the
+ * longest cascade seen, resolving a move does not allocate any memory.
+ * The order in which electrons are added is the same as in a breadth-first
+ * search over the explosions.
+ *
+ * Chain reactions with many explosions are recorded as {@link ChainReactionEvent}
+ * by the flight recorder. Squares affected by the chain reaction are counted only
+ * while the event is enabled.
+ *
+ * A resolver is not thread-safe, every thread needs its own instance.
+ */
+public final class ChainReactionResolver {
+
+    /**
+     * Adds an electron of a player to a square and resolves all explosions caused by it.
+     * @param board The board to modify.
+     * @param target The index of the chosen square.
+     * @param playerId The ID of the player making the move.
+     * @param playerElectronCounts The electron counts of all players, updated in place.
+     * @param allPlayersMoved An indicator whether all players have made a move.
+     * @return The number of explosions that happened.
+     */
+    public int resolve(Board board, int target, int playerId, int[] playerElectronCounts, boolean allPlayersMoved) {
+        return resolve(board, target, playerId, playerElectronCounts, allPlayersMoved, null);
+    }
+
+    /**
+     * Adds an electron of a player to a square and resolves all explosions caused by it.
+     * @param board The board to modify.
+     * @param target The index of the chosen square.
+     * @param playerId The ID of the player making the move.
+     * @param playerElectronCounts The electron counts of all players, updated in place.
+     * @param allPlayersMoved An indicator whether all players have made a move.
+     * @param listener The listener notified about every change of a square, or null.
+     * @return The number of explosions that happened.
+     */
+    int resolve(
+            Board board,
+            int target,
+            int playerId,
+            int[] playerElectronCounts,
+            boolean allPlayersMoved,
+            SquareChangeListener listener) {
+        BoardGeometry geometry = board.getGeometry();
+        ChainReactionEvent event = new ChainReactionEvent();
+        boolean recording = event.isEnabled();
+        if (recording) {
+            event.begin();
+            startCountingAffectedSquares(board.getSquaresCount());
+        }
+        playerElectronCounts[playerId]++;
+        head = 0;
+        tail = 0;
+        enqueue(target);
+        int explosionsCount = 0;
+        int capturedSquaresCount = 0;
+        while (head != tail && !MoveGenerator.playerStoleAllElectrons(playerId, playerElectronCounts, allPlayersMoved)) {
+            int currentTarget = queue[head];
+            head = (head + 1) & (queue.length - 1);
+            int packedSquare = board.getPackedSquare(currentTarget);
+            int oldPlayerId = Board.unpackPlayerId(packedSquare);
+            int oldElectronsCount = Board.unpackElectronsCount(packedSquare);
+            int criticalMass = geometry.getCriticalMass(currentTarget);
+            if (recording) {
+                countAffectedSquare(currentTarget);
+            }
+            int newElectronsCount = oldElectronsCount + 1;
+            if (newElectronsCount >= criticalMass) {
+                newElectronsCount -= criticalMass;
+                for (int k = 0; k < criticalMass; k++) {
+                    enqueue(geometry.getNeighbour(currentTarget, k));
+                }
+                explosionsCount++;
+            }
+            if (oldPlayerId != playerId) {
+                if (oldPlayerId != Board.NO_PLAYER_ID) {
+                    playerElectronCounts[oldPlayerId] -= oldElectronsCount;
+                    capturedSquaresCount++;
+                }
+                playerElectronCounts[playerId] += oldElectronsCount;
+            }
+            int newPlayerId = newElectronsCount == 0 ? Board.NO_PLAYER_ID : playerId;
+            int newPackedSquare = Board.packSquare(newPlayerId, newElectronsCount);
+            board.setPackedSquare(currentTarget, newPackedSquare);
+            if (listener != null) {
+                listener.squareChanged(currentTarget, packedSquare, newPackedSquare);
+            }
+        }
+        if (recording && explosionsCount >= ChainReactionEvent.MIN_EXPLOSIONS_COUNT && event.shouldCommit()) {
+            event.playerId = playerId;
+            event.target = target;
+            event.explosionsCount = explosionsCount;
+            event.affectedSquaresCount = affectedSquaresCount;
+            event.capturedSquaresCount = capturedSquaresCount;
+            event.commit();
+        }
+        return explosionsCount;
+    }
+
+    private static final int INITIAL_QUEUE_CAPACITY = 64;
+
+    private int[] queue = new int[INITIAL_QUEUE_CAPACITY];
+    private int head;
+    private int tail;
+    // Squares marked with the current mark were affected by the current chain reaction
+    private int[] affectedSquareMarks = new int[0];
+    private int affectedSquareMark;
+    private int affectedSquaresCount;
+
+    /**
+     * Starts counting squares affected by a chain reaction.
+     * @param squaresCount The number of squares of the board.
+     */
+    private void startCountingAffectedSquares(int squaresCount) {
+        if (affectedSquareMarks.length < squaresCount || affectedSquareMark == Integer.MAX_VALUE) {
+            affectedSquareMarks = new int[squaresCount];
+            affectedSquareMark = 0;
+        }
+        affectedSquareMark++;
+        affectedSquaresCount = 0;
+    }
+
+    /**
+     * Counts a square that received an electron, if it was not counted yet.
+     * @param index The index of the square.
+     */
+    private void countAffectedSquare(int index) {
+        if (affectedSquareMarks[index] != affectedSquareMark) {
+            affectedSquareMarks[index] = affectedSquareMark;
+            affectedSquaresCount++;
+        }
+    }
+
+    /**
+     * Adds a square to the end of the queue, growing the queue if it is full.
+     * @param index The index of the square.
+     */
+    private void enqueue(int index) {
+        queue[tail] = index;
+        tail = (tail + 1) & (queue.length - 1);
+        if (tail == head) {
+            grow();
+        }
+    }
+
+    /**
+     * Doubles the capacity of the full queue while keeping the order of its elements.
+     */
+    private void grow() {
+        int[] newQueue = new int[queue.length * 2];
+        int headCount = queue.length - head;
+        System.arraycopy(queue, head, newQueue, 0, headCount);
+        System.arraycopy(queue, 0, newQueue, headCount, head);
+        head = 0;
+        tail = queue.length;
+        queue = newQueue;
+    }
+}
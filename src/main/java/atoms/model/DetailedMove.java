@@ -5,6 +5,27 @@ import java.util.List;
 /**
  * Move that is divided into phases of explosions that happen at the same time.
  * @param playerId The ID of the player the move belongs to.
+ * @param initialBoard The board before the move, it must not be modified.
  * @param phases The phases of explosions.
  */
-public record DetailedMove(int playerId, List<DetailedMovePhase> phases) {}
+public record DetailedMove(int playerId, Board initialBoard, List<DetailedMovePhase> phases) {
+
+    /**
+     * Creates a cursor placed before the first phase of the move.
+     * @return The cursor.
+     */
+    public DetailedMoveCursor cursor() {
+        return new DetailedMoveCursor(this);
+    }
+
+    /**
+     * Rebuilds the board after a phase of the move.
+     * @param phaseIndex The index of the phase.
+     * @return A new board after the phase.
+     */
+    public Board getBoardAfter(int phaseIndex) {
+        DetailedMoveCursor cursor = cursor();
+        cursor.moveTo(phaseIndex);
+        return cursor.getBoard().deepCopy();
+    }
+}
@@ -0,0 +1,88 @@
+package atoms.model;
+
+/**
+ * Cursor over the phases of a detailed move, which rebuilds the board after any phase
+ * from the initial board of the move and the changes of the phases.
+ *
+ * The cursor owns its board and applies changes to it in place, so moving
+ * to the next phase costs only the changes of that phase. Moving back replays
+ * the phases from the initial board.
+ */
+public final class DetailedMoveCursor {
+
+    /**
+     * Creates a cursor placed before the first phase of a move.
+     * @param move The move.
+     */
+    public DetailedMoveCursor(DetailedMove move) {
+        this.move = move;
+        board = move.initialBoard().deepCopy();
+        phaseIndex = BEFORE_FIRST_PHASE;
+    }
+
+    /**
+     * Gets the board after the current phase, or the initial board before the first phase.
+     * The board is updated in place when the cursor moves, it must not be modified.
+     * @return The board.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Gets the index of the current phase.
+     * @return The index of the phase whose changes were applied last, or -1 before the first phase.
+     */
+    public int getPhaseIndex() {
+        return phaseIndex;
+    }
+
+    /**
+     * Checks whether there is a phase after the current one.
+     * @return True if there is a next phase, otherwise false.
+     */
+    public boolean hasNextPhase() {
+        return phaseIndex + 1 < move.phases().size();
+    }
+
+    /**
+     * Moves to the next phase by applying its changes to the board.
+     * @return The next phase.
+     * @throws IllegalStateException If the cursor is after the last phase.
+     */
+    public DetailedMovePhase nextPhase() {
+        if (!hasNextPhase()) {
+            throw new IllegalStateException("The cursor is after the last phase");
+        }
+        phaseIndex++;
+        DetailedMovePhase phase = move.phases().get(phaseIndex);
+        for (SquareChange change : phase.changes()) {
+            board.setSquare(change.position(), change.square());
+        }
+        return phase;
+    }
+
+    /**
+     * Moves to a phase, moving back replays the phases from the initial board.
+     * @param phaseIndex The index of the phase, or -1 for the initial board.
+     * @throws IndexOutOfBoundsException If there is no such phase.
+     */
+    public void moveTo(int phaseIndex) {
+        if (phaseIndex < BEFORE_FIRST_PHASE || phaseIndex >= move.phases().size()) {
+            throw new IndexOutOfBoundsException("No phase " + phaseIndex);
+        }
+        if (phaseIndex < this.phaseIndex) {
+            board.copyFrom(move.initialBoard());
+            this.phaseIndex = BEFORE_FIRST_PHASE;
+        }
+        while (this.phaseIndex < phaseIndex) {
+            nextPhase();
+        }
+    }
+
+    private static final int BEFORE_FIRST_PHASE = -1;
+
+    private final DetailedMove move;
+    private final Board board;
+    private int phaseIndex;
+}
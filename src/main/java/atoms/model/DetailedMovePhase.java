@@ -4,12 +4,15 @@ import java.util.List;
 
 /**
  * Phase of a detailed move with explosions happening at the same time.
+ *
+ * The phase holds only the squares it changed, the board after the phase
+ * is rebuilt from the initial board of the move by a {@link DetailedMoveCursor}.
  * @param explosions Positions of explosions.
  * @param targets Positions of explosion targets.
- * @param boardAfter The board after the explosions happen.
+ * @param changes The changed squares with their state after the phase, ordered by rows and columns.
  */
 public record DetailedMovePhase(
         List<SquarePosition> explosions,
         List<SquarePosition> targets,
-        Board boardAfter) {
+        List<SquareChange> changes) {
 }
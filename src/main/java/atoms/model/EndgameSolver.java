@@ -0,0 +1,314 @@
+package atoms.model;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Exact solver of endgames of two players.
+ *
+ * The solver proves whether the player on the move can force a win, or whether
+ * the opponent can. It deepens iteratively and at every depth asks only whether
+ * a player wins within the given number of plies, so the first win found is
+ * the shortest one. A player can capture all squares of the opponent only by
+ * an explosion, so only moves onto squares that explode are tried as winning
+ * moves at the last ply. Positions without a win within some depth and positions
+ * with a win are stored in the solver's own transposition table.
+ *
+ * If the position cannot be solved within the maximum depth, the node limit or
+ * the time limit, or if the solver is asked to stop, the outcome is unknown.
+ * Every move made by the solver counts as a node.
+ * Every depth is recorded as a {@link SearchIterationEvent} by the flight recorder.
+ */
+public final class EndgameSolver {
+    public static final int PLAYERS_COUNT = 2;
+    public static final long DEFAULT_TRANSPOSITION_TABLE_SIZE = 8L << 20;
+    public static final int DEFAULT_MAX_DEPTH = 15;
+    public static final long DEFAULT_NODE_LIMIT = 100_000;
+
+    /**
+     * Outcome of a position for the player on the move.
+     */
+    public enum Outcome {
+        /**
+         * The player on the move can force a win.
+         */
+        WIN,
+        /**
+         * The opponent can force a win against every move.
+         */
+        LOSS,
+        /**
+         * The position was not solved.
+         */
+        UNKNOWN
+    }
+
+    /**
+     * Solution of a position.
+     * @param outcome The outcome for the player on the move.
+     * @param target The target square of the shortest win, or of the longest defence in a lost position,
+     * or null if the outcome is unknown.
+     * @param distance The number of plies until the game ends, or zero if the outcome is unknown.
+     * @param nodes The number of searched nodes.
+     */
+    public record Solution(Outcome outcome, SquarePosition target, int distance, long nodes) {}
+
+    /**
+     * Creates a solver with the default limits and a transposition table of the default size.
+     */
+    public EndgameSolver() {
+        this(new TranspositionTable(DEFAULT_TRANSPOSITION_TABLE_SIZE, TranspositionTable.ReplacementPolicy.TWO_TIER),
+                DEFAULT_MAX_DEPTH, DEFAULT_NODE_LIMIT);
+    }
+
+    /**
+     * Creates a solver.
+     * @param transpositionTable The transposition table used only by the solver.
+     * @param maxDepth The maximum number of plies of a win.
+     * @param nodeLimit The maximum number of searched nodes of one position.
+     */
+    public EndgameSolver(TranspositionTable transpositionTable, int maxDepth, long nodeLimit) {
+        this.transpositionTable = transpositionTable;
+        this.maxDepth = Math.min(maxDepth, SearchLimits.MAX_DEPTH);
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Solves a position of two players.
+     * @param state The current state, it must not be terminal.
+     * @param playerId The ID of the player on the move.
+     * @param timeLimitMillis The time limit in milliseconds, or zero for no limit.
+     * @param stopCondition The condition checked during the search, once it holds the outcome is unknown.
+     * @return The solution of the position.
+     */
+    public Solution solve(BoardState state, int playerId, long timeLimitMillis, BooleanSupplier stopCondition) {
+        this.timeLimitMillis = timeLimitMillis;
+        this.stopCondition = stopCondition;
+        deadline = System.nanoTime() + timeLimitMillis * NANOS_PER_MILLI;
+        position = new Position(state);
+        geometry = position.getBoard().getGeometry();
+        int squaresCount = position.getSquaresCount();
+        if (moves == null || moves[0].length != squaresCount) {
+            moves = new int[MAX_PLY][squaresCount];
+        }
+        nodes = 0;
+        aborted = false;
+        transpositionTable.newSearch();
+        for (int depth = 1; depth <= maxDepth && !aborted; depth++) {
+            SearchIterationEvent event = new SearchIterationEvent();
+            event.begin();
+            long iterationStartNodes = nodes;
+            Solution solution = solveToDepth(depth, playerId);
+            if (event.shouldCommit()) {
+                event.engine = ENGINE_NAME;
+                event.depth = depth;
+                event.nodes = nodes - iterationStartNodes;
+                event.completed = !aborted;
+                event.commit();
+            }
+            if (solution != null) {
+                return solution;
+            }
+        }
+        return new Solution(Outcome.UNKNOWN, null, 0, nodes);
+    }
+
+    private static final int NO_WIN = Integer.MAX_VALUE;
+    private static final int MAX_PLY = SearchLimits.MAX_DEPTH + 1;
+    private static final String ENGINE_NAME = "endgame";
+    private static final long NANOS_PER_MILLI = 1_000_000;
+    private static final int NODES_BETWEEN_CHECKS = 1024;
+
+    private final TranspositionTable transpositionTable;
+    private final int maxDepth;
+    private final long nodeLimit;
+    private long timeLimitMillis;
+    private BooleanSupplier stopCondition;
+    private long deadline;
+    private Position position;
+    private BoardGeometry geometry;
+    private int[][] moves;
+    private int rootMove;
+    private long nodes;
+    private boolean aborted;
+
+    /**
+     * Solves the position at the root to the given depth.
+     * @param depth The maximum number of plies until the end of the game.
+     * @param playerId The ID of the player on the move.
+     * @return The solution, or null if the position is not solved at this depth.
+     */
+    private Solution solveToDepth(int depth, int playerId) {
+        Board board = position.getBoard();
+        int opponentId = 1 - playerId;
+        if (depth % 2 == 1) {
+            int distance = findWin(depth, 0, playerId);
+            if (distance != NO_WIN && !aborted) {
+                return new Solution(Outcome.WIN, board.getPosition(rootMove), distance, nodes);
+            }
+        } else {
+            // The position is lost if every move leads to a win of the opponent
+            int movesCount = generateMoves(0, playerId, false);
+            int longestDefence = TranspositionTable.NO_MOVE;
+            int longestDistance = 0;
+            for (int i = 0; i < movesCount && !aborted; i++) {
+                int target = moves[0][i];
+                makeMove(target, playerId);
+                int distance = findWin(depth - 1, 1, opponentId);
+                position.unmakeMove();
+                if (distance == NO_WIN) {
+                    longestDefence = TranspositionTable.NO_MOVE;
+                    break;
+                }
+                if (distance >= longestDistance) {
+                    longestDistance = distance;
+                    longestDefence = target;
+                }
+            }
+            if (longestDefence != TranspositionTable.NO_MOVE && !aborted) {
+                return new Solution(Outcome.LOSS, board.getPosition(longestDefence), longestDistance + 1, nodes);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the shortest win of the attacker, who is on the move, within the given number of plies.
+     * @param depth The maximum number of plies of the win.
+     * @param ply The distance from the root of the search.
+     * @param attackerId The ID of the attacker.
+     * @return The number of plies of the win, or NO_WIN if there is no win within the depth
+     * or the search was aborted.
+     */
+    private int findWin(int depth, int ply, int attackerId) {
+        if (aborted) {
+            return NO_WIN;
+        }
+        int symmetry = position.getCanonicalSymmetry();
+        long hash = position.getCanonicalHash() ^ geometry.getPlayerKey(attackerId);
+        long entry = transpositionTable.probe(hash);
+        if (entry != 0 && ply > 0) {
+            int bound = TranspositionTable.getBound(entry);
+            if (bound == TranspositionTable.BOUND_EXACT && TranspositionTable.getValue(entry) <= depth) {
+                return TranspositionTable.getValue(entry);
+            }
+            if (bound == TranspositionTable.BOUND_UPPER && TranspositionTable.getDepth(entry) >= depth) {
+                return NO_WIN;
+            }
+        }
+        // Only an explosion can capture all squares of the defender
+        int movesCount = generateMoves(ply, attackerId, true);
+        for (int i = 0; i < movesCount; i++) {
+            int target = moves[ply][i];
+            makeMove(target, attackerId);
+            boolean won = position.isTerminal();
+            position.unmakeMove();
+            if (won) {
+                return storeWin(hash, symmetry, ply, target, 1);
+            }
+        }
+        if (depth >= 3) {
+            int defenderId = 1 - attackerId;
+            movesCount = generateMoves(ply, attackerId, false);
+            for (int i = 0; i < movesCount; i++) {
+                int target = moves[ply][i];
+                makeMove(target, attackerId);
+                int distance = findDefence(depth - 1, ply + 1, defenderId, attackerId);
+                position.unmakeMove();
+                if (distance != NO_WIN) {
+                    return storeWin(hash, symmetry, ply, target, distance + 1);
+                }
+            }
+        }
+        if (!aborted) {
+            transpositionTable.store(hash, depth, TranspositionTable.BOUND_UPPER, 0, TranspositionTable.NO_MOVE);
+        }
+        return NO_WIN;
+    }
+
+    /**
+     * Finds the longest defence of the defender, who is on the move, against a win of the attacker.
+     * @param depth The maximum number of plies until the win of the attacker.
+     * @param ply The distance from the root of the search.
+     * @param defenderId The ID of the defender.
+     * @param attackerId The ID of the attacker.
+     * @return The number of plies until the win of the attacker against the longest defence,
+     * or NO_WIN if the defender can avoid losing within the depth.
+     */
+    private int findDefence(int depth, int ply, int defenderId, int attackerId) {
+        int movesCount = generateMoves(ply, defenderId, false);
+        int longestDistance = 0;
+        for (int i = 0; i < movesCount; i++) {
+            makeMove(moves[ply][i], defenderId);
+            int distance = position.isTerminal() ? NO_WIN : findWin(depth - 1, ply + 1, attackerId);
+            position.unmakeMove();
+            if (distance == NO_WIN) {
+                return NO_WIN;
+            }
+            longestDistance = Math.max(longestDistance, distance);
+        }
+        return longestDistance + 1;
+    }
+
+    /**
+     * Makes a move on the position and aborts the search if it exceeded its limits or if it was asked to stop.
+     * @param target The index of the target square.
+     * @param playerId The ID of the player making the move.
+     */
+    private void makeMove(int target, int playerId) {
+        position.makeMove(target, playerId);
+        if (++nodes >= nodeLimit) {
+            aborted = true;
+        } else if (nodes % NODES_BETWEEN_CHECKS == 0
+                && (stopCondition.getAsBoolean() || (timeLimitMillis > 0 && System.nanoTime() - deadline > 0))) {
+            aborted = true;
+        }
+    }
+
+    /**
+     * Stores a win in the transposition table.
+     * @param hash The canonical hash of the position including the player on the move.
+     * @param symmetry The symmetry that transforms the position into its canonical form.
+     * @param ply The distance from the root of the search.
+     * @param target The index of the winning move.
+     * @param distance The number of plies of the win.
+     * @return The number of plies of the win.
+     */
+    private int storeWin(long hash, int symmetry, int ply, int target, int distance) {
+        if (ply == 0) {
+            rootMove = target;
+        }
+        transpositionTable.store(hash, distance, TranspositionTable.BOUND_EXACT, distance,
+                geometry.getSymmetricSquare(symmetry, target));
+        return distance;
+    }
+
+    /**
+     * Generates moves of a player, moves onto squares that explode come first.
+     * @param ply The distance from the root of the search.
+     * @param playerId The ID of the player on the move.
+     * @param explosionsOnly An indicator whether only moves onto squares that explode should be generated.
+     * @return The number of generated moves.
+     */
+    private int generateMoves(int ply, int playerId, boolean explosionsOnly) {
+        Board board = position.getBoard();
+        int[] plyMoves = moves[ply];
+        int count = 0;
+        for (int target = 0; target < plyMoves.length; target++) {
+            if (board.getPlayerId(target) == playerId
+                    && board.getElectronsCount(target) == geometry.getCriticalMass(target) - 1) {
+                plyMoves[count++] = target;
+            }
+        }
+        if (explosionsOnly) {
+            return count;
+        }
+        for (int target = 0; target < plyMoves.length; target++) {
+            if (position.canPlayerTarget(playerId, target)
+                    && !(board.getPlayerId(target) == playerId
+                            && board.getElectronsCount(target) == geometry.getCriticalMass(target) - 1)) {
+                plyMoves[count++] = target;
+            }
+        }
+        return count;
+    }
+}
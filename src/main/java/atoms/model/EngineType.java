@@ -0,0 +1,30 @@
+package atoms.model;
+
+import java.util.Random;
+
+/**
+ * Type of the engine that chooses moves for an AI player.
+ */
+public enum EngineType {
+    /**
+     * Minimax search with alpha-beta pruning, see {@link MinimaxSearch}.
+     */
+    MINIMAX,
+    /**
+     * Monte Carlo tree search, see {@link MonteCarloTreeSearch}.
+     */
+    MONTE_CARLO;
+
+    /**
+     * Creates an engine of this type.
+     * @param random The random generator used by the engine.
+     * @param threads The number of threads used by the engine.
+     * @return The engine.
+     */
+    public AIEngine createEngine(Random random, int threads) {
+        return switch (this) {
+            case MINIMAX -> new MinimaxSearch(random, threads);
+            case MONTE_CARLO -> new MonteCarloTreeSearch(random.nextLong(), threads);
+        };
+    }
+}
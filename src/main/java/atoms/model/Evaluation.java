@@ -0,0 +1,108 @@
+package atoms.model;
+
+/**
+ * Evaluation of a board that is updated incrementally with every change of a square.
+ *
+ * The terms of a square depend only on the square and its neighbours, so
+ * a change of a square changes the terms of at most five squares. The score of
+ * every square is cached together with its owner, and the scores of players
+ * are updated by the difference when the square or a neighbour changes.
+ */
+final class Evaluation {
+
+    /**
+     * Creates an evaluation of a board.
+     * @param board The board, the evaluation must be notified about all its changes.
+     * @param weights The weights of the terms.
+     * @param playersCount The number of players.
+     */
+    Evaluation(Board board, EvaluationWeights weights, int playersCount) {
+        this.board = board;
+        this.weights = weights;
+        geometry = board.getGeometry();
+        squareScores = new int[board.getSquaresCount()];
+        squareOwners = new int[board.getSquaresCount()];
+        playerScores = new int[playersCount];
+        for (int index = 0; index < squareScores.length; index++) {
+            squareOwners[index] = Board.NO_PLAYER_ID;
+            updateSquare(index);
+        }
+    }
+
+    /**
+     * Updates the evaluation after a square was changed on the board.
+     * @param index The index of the square.
+     */
+    void squareChanged(int index) {
+        updateSquare(index);
+        for (int k = 0; k < geometry.getCriticalMass(index); k++) {
+            updateSquare(geometry.getNeighbour(index, k));
+        }
+    }
+
+    /**
+     * Gets the score of a player.
+     * @param playerId The ID of the player.
+     * @return The sum of the weights of all terms that apply to squares of the player.
+     */
+    int getScore(int playerId) {
+        return playerScores[playerId];
+    }
+
+    private final Board board;
+    private final BoardGeometry geometry;
+    private final EvaluationWeights weights;
+    private final int[] squareScores;
+    private final int[] squareOwners;
+    private final int[] playerScores;
+
+    /**
+     * Recomputes the score of a square and updates the score of its owner.
+     * @param index The index of the square.
+     */
+    private void updateSquare(int index) {
+        int oldOwner = squareOwners[index];
+        if (oldOwner != Board.NO_PLAYER_ID) {
+            playerScores[oldOwner] -= squareScores[index];
+        }
+        int owner = board.getPlayerId(index);
+        int score = owner == Board.NO_PLAYER_ID ? 0 : computeSquareScore(index, owner);
+        if (owner != Board.NO_PLAYER_ID) {
+            playerScores[owner] += score;
+        }
+        squareOwners[index] = owner;
+        squareScores[index] = score;
+    }
+
+    /**
+     * Computes the score of a square owned by a player.
+     * @param index The index of the square.
+     * @param owner The ID of the owner.
+     * @return The sum of the weights of all terms that apply to the square.
+     */
+    private int computeSquareScore(int index, int owner) {
+        int criticalMass = geometry.getCriticalMass(index);
+        int score = weights.electron() * board.getElectronsCount(index);
+        if (board.getElectronsCount(index) == criticalMass - 1) {
+            score += weights.criticalSquare();
+        }
+        if (criticalMass == CORNER_CRITICAL_MASS) {
+            score += weights.corner();
+        } else if (criticalMass == EDGE_CRITICAL_MASS) {
+            score += weights.edge();
+        }
+        for (int k = 0; k < criticalMass; k++) {
+            int neighbour = geometry.getNeighbour(index, k);
+            int neighbourOwner = board.getPlayerId(neighbour);
+            if (neighbourOwner != Board.NO_PLAYER_ID && neighbourOwner != owner
+                    && board.getElectronsCount(neighbour) == geometry.getCriticalMass(neighbour) - 1) {
+                score += weights.vulnerableSquare();
+                break;
+            }
+        }
+        return score;
+    }
+
+    private static final int CORNER_CRITICAL_MASS = 2;
+    private static final int EDGE_CRITICAL_MASS = 3;
+}
@@ -0,0 +1,26 @@
+package atoms.model;
+
+/**
+ * Weights of the terms of the evaluation of a position.
+ *
+ * The score of a player is the sum of the weights of all terms that apply to
+ * squares of the player. The evaluation of a position is the difference of the scores.
+ * @param electron The weight of every electron of the player.
+ * @param criticalSquare The weight of a square that explodes after adding an electron.
+ * @param vulnerableSquare The weight of a square next to a critical square of an opponent,
+ * usually negative, because the square can be captured by the next explosion.
+ * @param corner The weight of a corner square.
+ * @param edge The weight of a square on an edge of the board that is not a corner.
+ */
+public record EvaluationWeights(int electron, int criticalSquare, int vulnerableSquare, int corner, int edge) {
+
+    /**
+     * Weights that count only electrons of players.
+     */
+    public static final EvaluationWeights MATERIAL = new EvaluationWeights(1, 0, 0, 0, 0);
+
+    /**
+     * Default weights of the evaluation.
+     */
+    public static final EvaluationWeights DEFAULT = new EvaluationWeights(4, 2, -3, 2, 1);
+}
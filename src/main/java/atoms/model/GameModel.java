@@ -1,25 +1,167 @@
 package atoms.model;
 
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Collections;
 import java.util.Random;
-import java.util.stream.IntStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
 
 /**
  * Model of the Exploding Atoms game.
  */
 public final class GameModel {
-    public static final int PLAYERS_COUNT = 2;
-    public static final int BOARD_SIZE = 8;
+    public static final int DEFAULT_PLAYERS_COUNT = 2;
+    public static final int DEFAULT_BOARD_SIZE = 8;
+    public static final int MIN_PLAYERS_COUNT = 2;
+    public static final int MAX_PLAYERS_COUNT = BoardGeometry.MAX_PLAYERS_COUNT;
+    public static final int MIN_BOARD_SIZE = 2;
+    public static final int MAX_BOARD_SIZE = 64;
+    public static final SearchLimits DEFAULT_SEARCH_LIMITS = SearchLimits.ofDepth(3);
+    public static final int DEFAULT_SEARCH_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final EngineType DEFAULT_ENGINE_TYPE = EngineType.MINIMAX;
+    public static final Path DEFAULT_OPENING_BOOK_PATH = Path.of("opening.book");
+    public static final int DEFAULT_ENDGAME_THRESHOLD = 4;
 
     /**
-     * Creates a new game model.
+     * Creates a new game model of the default size and number of players with the default number of search threads.
      */
     public GameModel() {
-        currentBoardState = new BoardState(BOARD_SIZE, PLAYERS_COUNT);
+        this(DEFAULT_SEARCH_THREADS);
+    }
+
+    /**
+     * Creates a new game model of the default size and number of players.
+     * @param searchThreads The number of threads used by the search of each AI player.
+     */
+    public GameModel(int searchThreads) {
+        this(DEFAULT_BOARD_SIZE, DEFAULT_PLAYERS_COUNT, searchThreads);
+    }
+
+    /**
+     * Creates a new game model with the default number of search threads.
+     * @param boardSize The size of the board.
+     * @param playersCount The number of players.
+     * @throws IllegalArgumentException If the size or the number of players is out of range.
+     */
+    public GameModel(int boardSize, int playersCount) {
+        this(boardSize, playersCount, DEFAULT_SEARCH_THREADS);
+    }
+
+    /**
+     * Creates a new game model.
+     * @param boardSize The size of the board.
+     * @param playersCount The number of players.
+     * @param searchThreads The number of threads used by the search of each AI player.
+     * @throws IllegalArgumentException If the size or the number of players is out of range.
+     */
+    public GameModel(int boardSize, int playersCount, int searchThreads) {
+        if (boardSize < MIN_BOARD_SIZE || boardSize > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + boardSize);
+        }
+        if (playersCount < MIN_PLAYERS_COUNT || playersCount > MAX_PLAYERS_COUNT) {
+            throw new IllegalArgumentException("Unsupported number of players: " + playersCount);
+        }
+        currentBoardState = new BoardState(boardSize, playersCount);
         currentPlayerId = 0;
         winnerId = Board.NO_PLAYER_ID;
+        this.searchThreads = searchThreads;
+        engines = new AIEngine[playersCount];
+        engineTypes = new EngineType[playersCount];
+        searchLimits = new SearchLimits[playersCount];
+        Arrays.fill(engineTypes, DEFAULT_ENGINE_TYPE);
+        Arrays.fill(searchLimits, DEFAULT_SEARCH_LIMITS);
+    }
+
+    /**
+     * Sets the type of the engine that chooses moves of an AI player.
+     * Engines are created by the first search of the player, so human players never start their threads.
+     * @param playerId The ID of the player.
+     * @param engineType The type of the engine.
+     */
+    public void setEngineType(int playerId, EngineType engineType) {
+        synchronized (engines) {
+            if (engineTypes[playerId] == engineType) {
+                return;
+            }
+            if (engines[playerId] != null) {
+                engines[playerId].close();
+                engines[playerId] = null;
+            }
+            engineTypes[playerId] = engineType;
+        }
+    }
+
+    /**
+     * Gets the type of the engine that chooses moves of an AI player.
+     * @param playerId The ID of the player.
+     * @return The type of the engine.
+     */
+    public EngineType getEngineType(int playerId) {
+        return engineTypes[playerId];
+    }
+
+    /**
+     * Sets the limits of the search for moves of an AI player.
+     * @param playerId The ID of the player.
+     * @param limits The limits of the search.
+     */
+    public void setSearchLimits(int playerId, SearchLimits limits) {
+        searchLimits[playerId] = limits;
+    }
+
+    /**
+     * Gets the limits of the search for moves of an AI player.
+     * @param playerId The ID of the player.
+     * @return The limits of the search.
+     */
+    public SearchLimits getSearchLimits(int playerId) {
+        return searchLimits[playerId];
+    }
+
+    /**
+     * Sets the opening book, moves of AI players are taken from the book while the position is in it.
+     * @param openingBook The opening book, or null if no book should be used.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        moveChooser.setOpeningBook(openingBook);
+    }
+
+    /**
+     * Sets the threshold of the endgame, where moves of AI players are chosen by the exact solver.
+     * The solver is used only in games of two players.
+     * @param squaresCount The endgame starts when a player owns at most this number of squares
+     * and at least half of the board is occupied, zero disables the solver.
+     */
+    public void setEndgameThreshold(int squaresCount) {
+        moveChooser.setEndgameThreshold(squaresCount);
+    }
+
+    /**
+     * Gets the size of the board.
+     * @return The size of the board.
+     */
+    public int getBoardSize() {
+        return currentBoardState.getBoard().getSize();
+    }
+
+    /**
+     * Gets the number of players.
+     * @return The number of players.
+     */
+    public int getPlayersCount() {
+        return currentBoardState.getPlayersCount();
+    }
+
+    /**
+     * Checks whether a player lost all electrons and is out of the game.
+     * @param playerId The ID of the player.
+     * @return An indicator whether the player is out of the game.
+     */
+    public boolean isEliminated(int playerId) {
+        return currentBoardState.isEliminated(playerId);
     }
 
     /**
@@ -60,6 +202,10 @@ public final class GameModel {
         if (move == null || nextState == null) {
             return null;
         }
+        if (pondering != null && !pondering.isExpectedMove(position)) {
+            pondering.cancel();
+        }
+        expectedMove = null;
         switchToNextState(nextState);
         return move;
     }
@@ -72,15 +218,129 @@ public final class GameModel {
         if (isGameOver()) {
             return null;
         }
-        BoardState nextState = chooseAIMove();
-        DetailedMove move = MoveGenerator.generateDetailedMove(currentBoardState, currentPlayerId, nextState.getTarget());
+        return performAIMove(searchAIMove());
+    }
+
+    /**
+     * Searches for a move of the current player as an AI player without performing it.
+     * The search can run on a background thread, as long as the model is not changed until it ends.
+     * @return The result of the search, or null if the game is over.
+     */
+    public SearchResult searchAIMove() {
+        if (isGameOver()) {
+            return null;
+        }
+        try {
+            Pondering finishedPondering = pondering;
+            pondering = null;
+            if (finishedPondering != null) {
+                SearchResult ponderResult = finishedPondering.join();
+                if (!finishedPondering.isCancelled() && ponderResult != null) {
+                    return ponderResult;
+                }
+            }
+            return chooseAIMove(currentBoardState, currentPlayerId, () -> aiMoveStopped);
+        } finally {
+            // A request to stop is kept until a search ends, so that a request made before the search is not lost
+            aiMoveStopped = false;
+        }
+    }
+
+    /**
+     * Starts pondering, a search of an AI player during the turn of the current player.
+     * The search runs in the position after the reply of the current player expected
+     * by the last AI search, with the same engine and limits as a regular search.
+     * If the current player makes the expected move, {@link #searchAIMove()} returns
+     * the result of the pondering, waiting for it if necessary, otherwise the pondering
+     * is stopped and its search only leaves entries in the transposition table.
+     * Nothing is started if no reply is expected or the expected reply passes the turn
+     * to a player who is not an AI player.
+     * @param isAIPlayer The predicate telling whether a player with the given ID is an AI player.
+     * @param executor The executor running the search, it should also run the search
+     * of the next AI move, so that the searches do not overlap.
+     */
+    public void startPondering(IntPredicate isAIPlayer, Executor executor) {
+        stopPondering();
+        if (isGameOver() || expectedMove == null) {
+            return;
+        }
+        BoardState expectedState = MoveGenerator.generateMove(currentBoardState, currentPlayerId, expectedMove);
+        if (expectedState == null || expectedState.isTerminal()) {
+            return;
+        }
+        int playerId = expectedState.getNextPlayerId(currentPlayerId);
+        if (!isAIPlayer.test(playerId)) {
+            return;
+        }
+        pondering = new Pondering(expectedMove, expectedState, playerId);
+        executor.execute(pondering::run);
+    }
+
+    /**
+     * Stops pondering, if any, without waiting for its search to end.
+     */
+    public void stopPondering() {
+        if (pondering != null) {
+            pondering.cancel();
+            pondering = null;
+        }
+    }
+
+    /**
+     * Asks a running search of an AI player to stop as soon as possible,
+     * the search still returns the best move found so far.
+     * If no search is running, the next search stops as soon as it has a move.
+     */
+    public void stopAIMove() {
+        stopPondering();
+        aiMoveStopped = true;
+    }
+
+    /**
+     * Performs a move found by a search of the current player.
+     * @param result The result of {@link #searchAIMove()} in the current state.
+     * @return The move that was performed.
+     */
+    public DetailedMove performAIMove(SearchResult result) {
+        if (isGameOver()) {
+            return null;
+        }
+        lastSearchResult = result;
+        SquarePosition target = result.target();
+        DetailedMove move = MoveGenerator.generateDetailedMove(currentBoardState, currentPlayerId, target);
+        BoardState nextState = MoveGenerator.generateMove(currentBoardState, currentPlayerId, target);
         if (move == null || nextState == null) {
             return null;
         }
+        List<SquarePosition> principalVariation = result.statistics().principalVariation();
+        expectedMove = principalVariation.size() > 1 && principalVariation.get(0).equals(target)
+                ? principalVariation.get(1) : null;
         switchToNextState(nextState);
         return move;
     }
 
+    /**
+     * Gets the result of the last search of an AI player, including the statistics of the search.
+     * @return The result of the last search, or null if no AI move was performed.
+     */
+    public SearchResult getLastSearchResult() {
+        return lastSearchResult;
+    }
+
+    /**
+     * Stops the threads used by the search, the model cannot perform AI moves afterwards.
+     */
+    public void close() {
+        stopPondering();
+        synchronized (engines) {
+            for (AIEngine engine : engines) {
+                if (engine != null) {
+                    engine.close();
+                }
+            }
+        }
+    }
+
     /**
      * Gets the current state.
      * @return The current state.
@@ -89,123 +349,128 @@ public final class GameModel {
         return currentBoardState;
     }
 
-    private static final int MINIMAX_DEPTH = 2;
     private static final int RANDOM_SEED = 0;
 
     private final Random random = new Random(RANDOM_SEED);
+    private final int searchThreads;
+    private final AIEngine[] engines;
+    private final EngineType[] engineTypes;
+    private final SearchLimits[] searchLimits;
+    private final MoveChooser moveChooser = new MoveChooser(null, DEFAULT_ENDGAME_THRESHOLD);
+    private SearchResult lastSearchResult;
+    private SquarePosition expectedMove;
+    private volatile Pondering pondering;
+    private volatile boolean aiMoveStopped;
     private int winnerId;
     private BoardState currentBoardState;
     private int currentPlayerId;
 
     /**
-     * Switches the current state to another one.
-     * @param nextBoardState The state to switch to.
+     * Search of an AI player in the position after the expected move of the current player.
      */
-    private void switchToNextState(BoardState nextBoardState) {
-        currentBoardState = nextBoardState;
-        if (nextBoardState.isTerminal()) {
-            winnerId = currentPlayerId;
-        } else {
-            currentPlayerId = getNextPlayerId(currentPlayerId);
+    private final class Pondering {
+
+        /**
+         * Creates a pondering.
+         * @param move The expected move of the current player.
+         * @param state The state after the expected move.
+         * @param playerId The ID of the player to move in the state.
+         */
+        Pondering(SquarePosition move, BoardState state, int playerId) {
+            this.move = move;
+            this.state = state;
+            this.playerId = playerId;
         }
-    }
 
-    /**
-     * Gets ID of the player who is on the move after the given player.
-     * @param playerId The ID of a player.
-     * @return The ID of the player who is on the move after the given player.
-     */
-    private int getNextPlayerId(int playerId) {
-        return (playerId + 1) % PLAYERS_COUNT;
+        /**
+         * Runs the search unless the pondering was cancelled before.
+         */
+        void run() {
+            try {
+                result.complete(cancelled ? null : chooseAIMove(state, playerId, () -> cancelled || aiMoveStopped));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Cancels the pondering and stops its search, the search checks the cancellation as its stop condition,
+         * so the engine is not stopped and a later search of the engine is not affected.
+         */
+        void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Checks whether the pondering was cancelled.
+         * @return True if the pondering was cancelled, otherwise false.
+         */
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Checks whether a move of the current player is the one expected by the pondering.
+         * @param position The target position of the move.
+         * @return True if the move is the expected one, otherwise false.
+         */
+        boolean isExpectedMove(SquarePosition position) {
+            return move.equals(position);
+        }
+
+        /**
+         * Waits for the search to end.
+         * @return The result of the search, or null if the pondering was cancelled before it started.
+         */
+        SearchResult join() {
+            return result.join();
+        }
+
+        private final SquarePosition move;
+        private final BoardState state;
+        private final int playerId;
+        private final CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        private volatile boolean cancelled;
     }
 
     /**
-     * Checks whether the given player is a maximizing player in the minimax algorithm.
-     * @param playerId The ID of a player.
-     * @return The indicator whether the player is a maximizing player in the minimax algorithm.
+     * Chooses a move of a player from the opening book, by the endgame solver,
+     * or by the engine of the player.
+     * @param state The state where the player moves.
+     * @param playerId The ID of the player.
+     * @param stopCondition The condition stopping the endgame solver and the search of the engine.
+     * @return The result of the search, a move from the book has zero depth and nodes.
      */
-    private boolean isMaximizingPlayer(int playerId) {
-        return playerId % 2 == 0;
+    private SearchResult chooseAIMove(BoardState state, int playerId, BooleanSupplier stopCondition) {
+        return moveChooser.choose(getEngine(playerId), state, playerId, searchLimits[playerId], stopCondition);
     }
 
     /**
-     * Chooses a move for AI player using the minimax algorithm.
-     * @return
+     * Gets the engine of a player and creates it if the player did not search yet.
+     * Engines are accessed under the lock of the array, because searches run on other threads
+     * than the ones that stop and close the engines.
+     * @param playerId The ID of the player.
+     * @return The engine of the player.
      */
-    private BoardState chooseAIMove() {
-        List<BoardState> states = MoveGenerator.generateAllMoves(currentBoardState, currentPlayerId);
-        List<Integer> evaluations = new ArrayList<>();
-        int nextPlayerId = getNextPlayerId(currentPlayerId);
-        for (BoardState state : states) {
-            int value = minimax(state, MINIMAX_DEPTH, Integer.MIN_VALUE, Integer.MAX_VALUE, nextPlayerId);
-            evaluations.add(value);
-        }
-        int bestValue;
-        if (isMaximizingPlayer(currentPlayerId)) {
-            bestValue = Collections.max(evaluations);
-        } else {
-            bestValue = Collections.min(evaluations);
-        }
-        int[] bestStateIndices = IntStream.range(0, states.size()).filter(i -> evaluations.get(i) == bestValue).toArray();
-        int bestStateIndex = bestStateIndices[random.nextInt(bestStateIndices.length)];
-        return states.get(bestStateIndex);
-    }
-
-    /**
-     * Evaluates a game state using the minimax algorithm.
-     * @param state The state to evaluate.
-     * @param depth The depth of the recursion.
-     * @param alpha The alpha from the alpha-beta pruning algorithm.
-     * @param beta The beta from the alpha-beta pruning algorithm.
-     * @param playerId The ID of the player on the move.
-     * @return The evaluation of the state.
-     */
-    private int minimax(BoardState state, int depth, int alpha, int beta, int playerId) {
-        if (depth == 0 || state.isTerminal()) {
-            return evaluateBoardState(state);
-        }
-        List<BoardState> states = MoveGenerator.generateAllMoves(state, playerId);
-        int nextPlayerId = getNextPlayerId(playerId);
-        if (isMaximizingPlayer(playerId)) {
-            int maxValue = Integer.MIN_VALUE;
-            for (BoardState nextState : states) {
-                int value = minimax(nextState, depth - 1, alpha, beta, nextPlayerId);
-                maxValue = Math.max(maxValue, value);
-                if (maxValue >= beta) {
-                    break;
-                }
-                alpha = Math.max(alpha, maxValue);
+    private AIEngine getEngine(int playerId) {
+        synchronized (engines) {
+            if (engines[playerId] == null) {
+                engines[playerId] = engineTypes[playerId].createEngine(random, searchThreads);
             }
-            return maxValue;
-        } else {
-            int minValue = Integer.MAX_VALUE;
-            for (BoardState nextState : states) {
-                int value = minimax(nextState, depth - 1, alpha, beta, nextPlayerId);
-                minValue = Math.min(minValue, value);
-                if (minValue <= alpha) {
-                    break;
-                }
-                beta = Math.min(beta, minValue);
-            }
-            return minValue;
+            return engines[playerId];
         }
     }
 
     /**
-     * Evaluates the given state.
-     * @param state The state to evaluate.
-     * @return The evaluation of the state.
+     * Switches the current state to another one.
+     * @param nextBoardState The state to switch to.
      */
-    private static int evaluateBoardState(BoardState state) {
-        int electronsCount1 = state.getElectronsCount(0);
-        int electronsCount2 = state.getElectronsCount(1);
-        if (electronsCount1 == 0) {
-            // First player loses
-            return Integer.MIN_VALUE;
-        } else if (electronsCount2 == 0) {
-            // Second player loses
-            return Integer.MAX_VALUE;
+    private void switchToNextState(BoardState nextBoardState) {
+        currentBoardState = nextBoardState;
+        if (nextBoardState.isTerminal()) {
+            winnerId = currentPlayerId;
+        } else {
+            currentPlayerId = nextBoardState.getNextPlayerId(currentPlayerId);
         }
-        return electronsCount1 - electronsCount2;
     }
 }
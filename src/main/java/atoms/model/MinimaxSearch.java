@@ -0,0 +1,642 @@
+package atoms.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Search for the best move using the minimax algorithm with alpha-beta pruning.
+ *
+ * The search deepens iteratively until it reaches the maximum depth or runs
+ * out of time or nodes, and it returns the best move from the last completed
+ * iteration. Moves at the root are ordered by their values from the previous
+ * iteration, deeper moves are ordered by {@link MoveOrdering} using the best
+ * moves stored in the transposition table, which is kept between searches.
+ *
+ * Every move at the root is searched with a full window, so the moves can be
+ * searched in parallel in a fork/join pool, each by its own worker with its own
+ * position. Workers share only the transposition table, and values from the
+ * table are used only if they were searched to the same depth, so a parallel
+ * search returns the same values as a serial one.
+ *
+ * Symmetric positions share entries of the transposition table, which is keyed
+ * by the canonical hash of the position and stores moves in the canonical form.
+ * While the position at the root is symmetric, moves symmetric to an already
+ * generated move are not searched and get the value of that move.
+ *
+ * Positions are evaluated by an {@link Evaluation} with configurable weights,
+ * which is updated incrementally as moves are made and unmade.
+ *
+ * Every result carries {@link SearchStatistics} with the principal variation
+ * followed through the transposition table, and the statistics are added
+ * to the {@link SearchMetrics} of minimax. Every iteration is recorded
+ * as a {@link SearchIterationEvent} by the flight recorder.
+ *
+ * The first player is the maximizing player and the second player is the
+ * minimizing player. Games of more than two players are searched by the paranoid
+ * algorithm, where the player at the root is the maximizing player and all other
+ * players are assumed to minimize the value of the root player, so alpha-beta
+ * pruning applies unchanged. The value of a position is then the score of the root
+ * player minus the scores of all other players, and since values depend on the
+ * root player, the key of the root player is mixed into hashes of positions.
+ * Players out of the game are skipped. If there are more moves with the same value,
+ * one is chosen randomly.
+ *
+ * A worker copies the board once per search and thread, and every node only
+ * makes and unmakes a move, so memory grows linearly with the area of the board
+ * and the cost of a move depends on the size of its chain reaction.
+ */
+public final class MinimaxSearch implements AIEngine {
+    public static final long DEFAULT_TRANSPOSITION_TABLE_SIZE = 16L << 20;
+
+    /**
+     * Creates a serial search with a transposition table of the default size.
+     * @param random The random generator used to choose between equal moves.
+     */
+    public MinimaxSearch(Random random) {
+        this(random, 1);
+    }
+
+    /**
+     * Creates a search with a transposition table of the default size.
+     * @param random The random generator used to choose between equal moves.
+     * @param parallelism The number of threads searching moves at the root.
+     */
+    public MinimaxSearch(Random random, int parallelism) {
+        this(random, new TranspositionTable(
+                DEFAULT_TRANSPOSITION_TABLE_SIZE,
+                TranspositionTable.ReplacementPolicy.TWO_TIER), parallelism);
+    }
+
+    /**
+     * Creates a search.
+     * @param random The random generator used to choose between equal moves.
+     * @param transpositionTable The transposition table.
+     * @param parallelism The number of threads searching moves at the root.
+     */
+    public MinimaxSearch(Random random, TranspositionTable transpositionTable, int parallelism) {
+        this.random = random;
+        this.transpositionTable = transpositionTable;
+        if (parallelism > 1) {
+            pool = new ForkJoinPool(parallelism, MinimaxSearch::createWorkerThread, null, false);
+        } else {
+            pool = null;
+        }
+    }
+
+    /**
+     * Searches for the best move of a player until the limits are reached or the stop condition holds.
+     * @param state The current state, it must not be terminal.
+     * @param playerId The ID of the player on the move.
+     * @param limits The limits of the search.
+     * @param stopCondition The condition checked during the search, once it holds the search stops.
+     * @return The result of the search.
+     */
+    @Override
+    public SearchResult search(BoardState state, int playerId, SearchLimits limits, BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+        try {
+            return searchBestMove(state, playerId, limits);
+        } finally {
+            // A request to stop is kept until a search ends, so that a request made before the search is not lost
+            stopped = false;
+        }
+    }
+
+    /**
+     * Enables or disables ordering of moves by killer moves, history and explosions.
+     * The best move from the transposition table is always tried first.
+     * The values found by the search do not depend on the ordering, only the number of nodes.
+     * @param enabled An indicator whether moves should be ordered.
+     */
+    public void setMoveOrderingEnabled(boolean enabled) {
+        moveOrderingEnabled = enabled;
+    }
+
+    /**
+     * Sets the weights of the evaluation of positions.
+     * The transposition table is cleared, so it must not be called during a search.
+     * @param weights The weights of the evaluation.
+     */
+    public void setEvaluationWeights(EvaluationWeights weights) {
+        evaluationWeights = weights;
+        transpositionTable.clear();
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible.
+     * The search still returns the best move from the last completed iteration.
+     * If no search is running, the next search stops after its first iteration.
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Stops the threads of the search, the search cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static final long NANOS_PER_MILLI = 1_000_000;
+    private static final int NODES_BETWEEN_CHECKS = 1024;
+    private static final String ENGINE_NAME = "minimax";
+    private static final SearchMetrics METRICS = SearchMetrics.forEngine(ENGINE_NAME);
+
+    private final Random random;
+    private final TranspositionTable transpositionTable;
+    private final ForkJoinPool pool;
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicLong expandedNodes = new AtomicLong();
+    private final AtomicLong cutoffs = new AtomicLong();
+    private final AtomicLong transpositionProbes = new AtomicLong();
+    private final AtomicLong transpositionHits = new AtomicLong();
+    private final ThreadLocal<MoveOrdering> moveOrderings = ThreadLocal.withInitial(MoveOrdering::new);
+    private volatile boolean moveOrderingEnabled = true;
+    private volatile EvaluationWeights evaluationWeights = EvaluationWeights.DEFAULT;
+    private final ThreadLocal<Worker> workers = new ThreadLocal<>();
+    private volatile long searchId;
+    private int perspectiveId;
+    private long perspectiveKey;
+    private SearchLimits limits;
+    private BooleanSupplier stopCondition;
+    private long deadline;
+    private volatile boolean stopped;
+    private volatile boolean canAbort;
+
+    /**
+     * Searches for the best move of a player by iterative deepening.
+     * @param state The current state, it must not be terminal.
+     * @param playerId The ID of the player on the move.
+     * @param limits The limits of the search.
+     * @return The result of the search.
+     */
+    private SearchResult searchBestMove(BoardState state, int playerId, SearchLimits limits) {
+        long startTime = System.nanoTime();
+        this.limits = limits;
+        deadline = startTime + limits.timeLimitMillis() * NANOS_PER_MILLI;
+        nodes.set(0);
+        expandedNodes.set(0);
+        cutoffs.set(0);
+        transpositionProbes.set(0);
+        transpositionHits.set(0);
+        canAbort = false;
+        searchId++;
+        transpositionTable.newSearch();
+
+        Board board = state.getBoard();
+        BoardGeometry geometry = board.getGeometry();
+        if (state.getPlayersCount() > 2) {
+            perspectiveId = playerId;
+            perspectiveKey = geometry.getPerspectiveKey(playerId);
+        } else {
+            // Values of two players do not depend on the player at the root
+            perspectiveId = 0;
+            perspectiveKey = 0;
+        }
+        List<Integer> symmetries = new ArrayList<>();
+        for (int symmetry = 0; symmetry < BoardGeometry.SYMMETRIES_COUNT; symmetry++) {
+            if (symmetry != BoardGeometry.IDENTITY && board.isSymmetric(symmetry)) {
+                symmetries.add(symmetry);
+            }
+        }
+        List<Integer> allTargets = new ArrayList<>();
+        List<Integer> searchedMoveIndices = new ArrayList<>();
+        List<Integer> targets = new ArrayList<>();
+        int[] moveIndices = new int[board.getSquaresCount()];
+        for (int target = 0; target < board.getSquaresCount(); target++) {
+            int squarePlayerId = board.getPlayerId(target);
+            if (squarePlayerId == Board.NO_PLAYER_ID || squarePlayerId == playerId) {
+                // The symmetric square with the lowest index represents all symmetric moves
+                int representative = target;
+                for (int symmetry : symmetries) {
+                    representative = Math.min(representative, geometry.getSymmetricSquare(symmetry, target));
+                }
+                if (representative == target) {
+                    moveIndices[target] = targets.size();
+                    targets.add(target);
+                }
+                allTargets.add(target);
+                searchedMoveIndices.add(moveIndices[representative]);
+            }
+        }
+        int movesCount = targets.size();
+        int[] order = new int[movesCount];
+        for (int i = 0; i < movesCount; i++) {
+            order[i] = i;
+        }
+        boolean maximizing = isMaximizingPlayer(playerId);
+        int[] evaluations = null;
+        int completedDepth = 0;
+        for (int depth = 1; depth <= limits.maxDepth(); depth++) {
+            SearchIterationEvent event = new SearchIterationEvent();
+            event.begin();
+            long iterationStartNodes = nodes.get();
+            int[] values = searchRootMoves(state, playerId, targets, order, depth);
+            if (event.shouldCommit()) {
+                event.engine = ENGINE_NAME;
+                event.depth = depth;
+                event.nodes = nodes.get() - iterationStartNodes;
+                event.completed = values != null;
+                event.commit();
+            }
+            if (values == null) {
+                break;
+            }
+            evaluations = values;
+            completedDepth = depth;
+            canAbort = true;
+            sortMoves(order, evaluations, maximizing);
+            int bestValue = evaluations[order[0]];
+            if (bestValue == (maximizing ? Integer.MAX_VALUE : Integer.MIN_VALUE)) {
+                // A forced win was found, deeper search cannot improve it
+                break;
+            }
+        }
+
+        int bestValue = evaluations[order[0]];
+        List<Integer> bestMoveIndices = new ArrayList<>();
+        for (int i = 0; i < allTargets.size(); i++) {
+            if (evaluations[searchedMoveIndices.get(i)] == bestValue) {
+                bestMoveIndices.add(i);
+            }
+        }
+        int bestMoveIndex = bestMoveIndices.get(random.nextInt(bestMoveIndices.size()));
+        int bestTarget = allTargets.get(bestMoveIndex);
+        List<SquarePosition> principalVariation = findPrincipalVariation(state, playerId, bestTarget, completedDepth);
+        long timeMillis = (System.nanoTime() - startTime) / NANOS_PER_MILLI;
+        SearchStatistics statistics = new SearchStatistics(completedDepth, nodes.get(), timeMillis,
+                expandedNodes.get(), cutoffs.get(), transpositionProbes.get(), transpositionHits.get(),
+                principalVariation);
+        METRICS.add(statistics);
+        return new SearchResult(board.getPosition(bestTarget), bestValue, statistics);
+    }
+
+    /**
+     * Searches all moves at the root to the given depth.
+     * @param state The current state.
+     * @param playerId The ID of the player on the move.
+     * @param targets The indices of target squares of moves.
+     * @param order The order in which moves should be searched.
+     * @param depth The depth of the search including the moves at the root.
+     * @return The values of moves, or null if the search was stopped.
+     */
+    private int[] searchRootMoves(BoardState state, int playerId, List<Integer> targets, int[] order, int depth) {
+        int[] values = new int[targets.size()];
+        if (pool == null) {
+            Worker worker = getWorker(state);
+            for (int i : order) {
+                values[i] = worker.searchMove(targets.get(i), playerId, depth);
+                if (worker.aborted) {
+                    return null;
+                }
+            }
+            return values;
+        }
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i : order) {
+            int target = targets.get(i);
+            tasks.add(() -> getWorker(state).searchMove(target, playerId, depth));
+        }
+        List<Future<Integer>> results = pool.invokeAll(tasks);
+        if (canAbort && stopped) {
+            return null;
+        }
+        try {
+            for (int k = 0; k < order.length; k++) {
+                values[order[k]] = results.get(k).get();
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new IllegalStateException("Search of a move failed", ex);
+        }
+        return values;
+    }
+
+    /**
+     * Gets the worker of the current thread, a worker is created once per search and thread,
+     * so that the board is not copied for every move at the root.
+     * @param state The state at the root of the search.
+     * @return The worker.
+     */
+    private Worker getWorker(BoardState state) {
+        Worker worker = workers.get();
+        if (worker == null || worker.searchId != searchId) {
+            worker = new Worker(state);
+            workers.set(worker);
+        }
+        return worker;
+    }
+
+    /**
+     * Follows the best moves stored in the transposition table from the chosen move.
+     * @param state The current state.
+     * @param playerId The ID of the player on the move.
+     * @param target The index of the target square of the chosen move.
+     * @param maxLength The maximum number of moves.
+     * @return The expected moves of both players, starting with the chosen move.
+     */
+    private List<SquarePosition> findPrincipalVariation(BoardState state, int playerId, int target, int maxLength) {
+        Position position = new Position(state);
+        BoardGeometry geometry = position.getBoard().getGeometry();
+        List<SquarePosition> variation = new ArrayList<>();
+        int move = target;
+        int currentPlayerId = playerId;
+        while (true) {
+            variation.add(position.getBoard().getPosition(move));
+            position.makeMove(move, currentPlayerId);
+            currentPlayerId = position.getNextPlayerId(currentPlayerId);
+            if (variation.size() >= maxLength || position.isTerminal()) {
+                return variation;
+            }
+            int symmetry = position.getCanonicalSymmetry();
+            long entry = transpositionTable.probe(
+                    position.getCanonicalHash() ^ geometry.getPlayerKey(currentPlayerId) ^ perspectiveKey);
+            move = entry == 0 ? TranspositionTable.NO_MOVE : getEntryMove(position, currentPlayerId, symmetry, entry);
+            if (move == TranspositionTable.NO_MOVE) {
+                return variation;
+            }
+        }
+    }
+
+    /**
+     * Gets the best move of a table entry in the orientation of a position.
+     * An entry of another position with a colliding hash can hold any move,
+     * so the move is used only if it is on the board and the player can make it.
+     * @param position The position of the entry.
+     * @param playerId The ID of the player on the move.
+     * @param symmetry The canonical symmetry of the position.
+     * @param entry The entry of the transposition table.
+     * @return The index of the target square of the move, or NO_MOVE if the entry has no valid move.
+     */
+    private static int getEntryMove(Position position, int playerId, int symmetry, long entry) {
+        int canonicalMove = TranspositionTable.getMove(entry);
+        BoardGeometry geometry = position.getBoard().getGeometry();
+        if (canonicalMove == TranspositionTable.NO_MOVE || canonicalMove >= geometry.getSquaresCount()) {
+            return TranspositionTable.NO_MOVE;
+        }
+        int move = geometry.getSymmetricSquare(geometry.getInverseSymmetry(symmetry), canonicalMove);
+        return position.canPlayerTarget(playerId, move) ? move : TranspositionTable.NO_MOVE;
+    }
+
+    /**
+     * Creates a daemon thread for the pool of the search.
+     * @param pool The pool.
+     * @return The thread.
+     */
+    private static ForkJoinWorkerThread createWorkerThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Searches moves on its own position.
+     */
+    private final class Worker {
+
+        /**
+         * Creates a worker.
+         * @param state The state at the root of the search.
+         */
+        Worker(BoardState state) {
+            position = new Position(state, evaluationWeights);
+            searchId = MinimaxSearch.this.searchId;
+            moveOrdering = moveOrderings.get();
+            moveOrdering.prepare(
+                    searchId,
+                    position.getSquaresCount(),
+                    state.getAllElectronCounts().length,
+                    moveOrderingEnabled);
+        }
+
+        /**
+         * Searches a move at the root.
+         * @param target The index of the target square of the move.
+         * @param playerId The ID of the player on the move.
+         * @param depth The depth of the search including the move.
+         * @return The value of the move, or an arbitrary value if the search was aborted.
+         */
+        int searchMove(int target, int playerId, int depth) {
+            position.makeMove(target, playerId);
+            int nextPlayerId = position.getNextPlayerId(playerId);
+            int value = minimax(depth - 1, 1, Integer.MIN_VALUE, Integer.MAX_VALUE, nextPlayerId);
+            position.unmakeMove();
+            nodes.addAndGet(workerNodes - reportedNodes);
+            reportedNodes = workerNodes;
+            expandedNodes.addAndGet(workerExpandedNodes);
+            cutoffs.addAndGet(workerCutoffs);
+            transpositionProbes.addAndGet(workerTranspositionProbes);
+            transpositionHits.addAndGet(workerTranspositionHits);
+            workerExpandedNodes = 0;
+            workerCutoffs = 0;
+            workerTranspositionProbes = 0;
+            workerTranspositionHits = 0;
+            return value;
+        }
+
+        private final Position position;
+        private final long searchId;
+        private final MoveOrdering moveOrdering;
+        private long workerNodes;
+        private long reportedNodes;
+        // Statistics not yet added to the shared counters
+        private long workerExpandedNodes;
+        private long workerCutoffs;
+        private long workerTranspositionProbes;
+        private long workerTranspositionHits;
+        private boolean aborted;
+
+        /**
+         * Evaluates a game state using the minimax algorithm.
+         *
+         * Moves are made and unmade on the position of the worker one at a time,
+         * so a cutoff skips the remaining moves without making them. Results
+         * are stored in the transposition table. Values are taken from the table
+         * only if they were searched to the same depth, so the result does not
+         * depend on the order in which positions were searched.
+         * @param depth The depth of the recursion.
+         * @param ply The distance from the root of the search.
+         * @param alpha The alpha from the alpha-beta pruning algorithm.
+         * @param beta The beta from the alpha-beta pruning algorithm.
+         * @param playerId The ID of the player on the move.
+         * @return The evaluation of the state, or an arbitrary value if the search was aborted.
+         */
+        private int minimax(int depth, int ply, int alpha, int beta, int playerId) {
+            workerNodes++;
+            if (workerNodes % NODES_BETWEEN_CHECKS == 0) {
+                checkLimits();
+            }
+            if (aborted) {
+                return 0;
+            }
+            if (depth == 0 || position.isTerminal() || position.isEliminated(perspectiveId)) {
+                return evaluatePosition(position);
+            }
+            BoardGeometry geometry = position.getBoard().getGeometry();
+            int symmetry = position.getCanonicalSymmetry();
+            long hash = position.getCanonicalHash() ^ geometry.getPlayerKey(playerId) ^ perspectiveKey;
+            long entry = transpositionTable.probe(hash);
+            workerTranspositionProbes++;
+            int hashMove = TranspositionTable.NO_MOVE;
+            if (entry != 0) {
+                workerTranspositionHits++;
+                hashMove = getEntryMove(position, playerId, symmetry, entry);
+                if (TranspositionTable.getDepth(entry) == depth) {
+                    int value = TranspositionTable.getValue(entry);
+                    int bound = TranspositionTable.getBound(entry);
+                    if (bound == TranspositionTable.BOUND_EXACT
+                            || (bound == TranspositionTable.BOUND_LOWER && value >= beta)
+                            || (bound == TranspositionTable.BOUND_UPPER && value <= alpha)) {
+                        return value;
+                    }
+                }
+            }
+            int originalAlpha = alpha;
+            int originalBeta = beta;
+            boolean maximizing = isMaximizingPlayer(playerId);
+            int bestValue = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            int bestMove = TranspositionTable.NO_MOVE;
+            int movesCount = moveOrdering.generateMoves(position, playerId, ply, hashMove);
+            workerExpandedNodes++;
+            for (int i = 0; i < movesCount; i++) {
+                int target = moveOrdering.selectMove(ply, i, movesCount);
+                position.makeMove(target, playerId);
+                int value = minimax(depth - 1, ply + 1, alpha, beta, position.getNextPlayerId(playerId));
+                position.unmakeMove();
+                if (aborted) {
+                    return 0;
+                }
+                if (maximizing) {
+                    if (value > bestValue || bestMove == TranspositionTable.NO_MOVE) {
+                        bestValue = value;
+                        bestMove = target;
+                    }
+                    if (bestValue >= beta) {
+                        moveOrdering.recordCutoff(ply, playerId, target, depth);
+                        workerCutoffs++;
+                        break;
+                    }
+                    alpha = Math.max(alpha, bestValue);
+                } else {
+                    if (value < bestValue || bestMove == TranspositionTable.NO_MOVE) {
+                        bestValue = value;
+                        bestMove = target;
+                    }
+                    if (bestValue <= alpha) {
+                        moveOrdering.recordCutoff(ply, playerId, target, depth);
+                        workerCutoffs++;
+                        break;
+                    }
+                    beta = Math.min(beta, bestValue);
+                }
+            }
+            int bound;
+            if (bestValue <= originalAlpha) {
+                bound = TranspositionTable.BOUND_UPPER;
+            } else if (bestValue >= originalBeta) {
+                bound = TranspositionTable.BOUND_LOWER;
+            } else {
+                bound = TranspositionTable.BOUND_EXACT;
+            }
+            int canonicalBestMove = bestMove == TranspositionTable.NO_MOVE
+                    ? TranspositionTable.NO_MOVE
+                    : geometry.getSymmetricSquare(symmetry, bestMove);
+            transpositionTable.store(hash, depth, bound, bestValue, canonicalBestMove);
+            return bestValue;
+        }
+
+        /**
+         * Aborts the search if it exceeded its limits or if it was asked to stop.
+         * The first iteration is never aborted, so that there is always a move to return.
+         */
+        private void checkLimits() {
+            long totalNodes = nodes.addAndGet(workerNodes - reportedNodes);
+            reportedNodes = workerNodes;
+            if (!canAbort) {
+                return;
+            }
+            if (stopped
+                    || stopCondition.getAsBoolean()
+                    || (limits.hasTimeLimit() && System.nanoTime() - deadline > 0)
+                    || (limits.hasNodeLimit() && totalNodes >= limits.nodeLimit())) {
+                stopped = true;
+            }
+            aborted = stopped;
+        }
+    }
+
+    /**
+     * Sorts moves from the best to the worst, moves with equal values keep their order.
+     * @param order The indices of moves to sort.
+     * @param values The values of moves.
+     * @param maximizing An indicator whether the player on the move is maximizing.
+     */
+    private static void sortMoves(int[] order, int[] values, boolean maximizing) {
+        for (int i = 1; i < order.length; i++) {
+            int move = order[i];
+            int j = i - 1;
+            while (j >= 0 && isBetter(values[move], values[order[j]], maximizing)) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = move;
+        }
+    }
+
+    /**
+     * Checks whether a value is strictly better than another one for a player.
+     * @param value The value.
+     * @param otherValue The other value.
+     * @param maximizing An indicator whether the player is maximizing.
+     * @return True if the value is better, otherwise false.
+     */
+    private static boolean isBetter(int value, int otherValue, boolean maximizing) {
+        return maximizing ? value > otherValue : value < otherValue;
+    }
+
+    /**
+     * Checks whether the given player is a maximizing player in the minimax algorithm.
+     * @param playerId The ID of a player.
+     * @return The indicator whether the player is a maximizing player in the minimax algorithm.
+     */
+    private boolean isMaximizingPlayer(int playerId) {
+        return playerId == perspectiveId;
+    }
+
+    /**
+     * Evaluates the given position from the view of the maximizing player.
+     * @param position The position to evaluate.
+     * @return The evaluation of the position.
+     */
+    private int evaluatePosition(Position position) {
+        // Before all players moved, a player without electrons did not lose yet
+        if (position.isTerminal() || position.isEliminated(perspectiveId)) {
+            if (position.getElectronsCount(perspectiveId) == 0) {
+                // The maximizing player loses
+                return Integer.MIN_VALUE;
+            } else {
+                // The maximizing player is the only one left
+                return Integer.MAX_VALUE;
+            }
+        }
+        int value = position.getScore(perspectiveId);
+        for (int playerId = 0; playerId < position.getPlayersCount(); playerId++) {
+            if (playerId != perspectiveId) {
+                value -= position.getScore(playerId);
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,518 @@
+package atoms.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Search for the best move using Monte Carlo tree search.
+ *
+ * Each iteration selects a path in the tree by the UCT formula, expands the last
+ * node of the path once it was visited often enough, plays random moves from it
+ * until the game ends, and adds the result to all nodes of the path. The move
+ * visited most often at the root is chosen.
+ *
+ * The tree is searched by several threads at once. Threads share one tree, and
+ * each thread adds a virtual loss to the nodes on its path until the result is
+ * known, so that the other threads prefer different paths. Nodes are stored in
+ * preallocated arrays indexed by the number of the node instead of objects,
+ * children of a node occupy consecutive indices. When the arrays are full,
+ * the tree stops growing and iterations play out from its leaves.
+ *
+ * Limits on time and nodes are shared with {@link MinimaxSearch}, where nodes
+ * are the number of playouts. The maximum depth does not apply to this search,
+ * without a limit on time or nodes the search plays a fixed number of playouts.
+ * The value of the result is the winning rate of the chosen move in per mille,
+ * and the depth is the depth of the deepest path in the tree. The whole search
+ * is recorded as one {@link SearchIterationEvent} by the flight recorder.
+ *
+ * In games of more than two players, every node collects the wins of the player
+ * who made its move, so each player chooses the moves best for themselves,
+ * and players out of the game are skipped.
+ */
+public final class MonteCarloTreeSearch implements AIEngine {
+    public static final int DEFAULT_NODES_CAPACITY = 1 << 20;
+    public static final long DEFAULT_PLAYOUTS_COUNT = 20_000;
+
+    /**
+     * Creates a search with the default capacity of the tree.
+     * @param seed The seed of random generators used by playouts.
+     * @param parallelism The number of threads searching the tree.
+     */
+    public MonteCarloTreeSearch(long seed, int parallelism) {
+        this(seed, parallelism, DEFAULT_NODES_CAPACITY);
+    }
+
+    /**
+     * Creates a search.
+     * @param seed The seed of random generators used by playouts.
+     * @param parallelism The number of threads searching the tree.
+     * @param nodesCapacity The maximum number of nodes in the tree.
+     */
+    public MonteCarloTreeSearch(long seed, int parallelism, int nodesCapacity) {
+        random = new SplittableRandom(seed);
+        this.parallelism = Math.max(1, parallelism);
+        if (this.parallelism > 1) {
+            pool = new ForkJoinPool(this.parallelism, MonteCarloTreeSearch::createWorkerThread, null, false);
+        } else {
+            pool = null;
+        }
+        firstChildren = new int[nodesCapacity];
+        childrenCounts = new int[nodesCapacity];
+        moves = new int[nodesCapacity];
+        states = new AtomicIntegerArray(nodesCapacity);
+        visits = new AtomicIntegerArray(nodesCapacity);
+        virtualLosses = new AtomicIntegerArray(nodesCapacity);
+        rewards = new AtomicIntegerArray(nodesCapacity);
+    }
+
+    /**
+     * Searches for the best move of a player until the limits are reached or the stop condition holds.
+     * @param state The current state, it must not be terminal.
+     * @param playerId The ID of the player on the move.
+     * @param limits The limits of the search.
+     * @param stopCondition The condition checked during the search, once it holds the search stops.
+     * @return The result of the search.
+     */
+    @Override
+    public SearchResult search(BoardState state, int playerId, SearchLimits limits, BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+        try {
+            return searchBestMove(state, playerId, limits);
+        } finally {
+            // A request to stop is kept until a search ends, so that a request made before the search is not lost
+            stopped = false;
+        }
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible and return its best move.
+     * If no search is running, the next search stops after the playouts of all moves at the root.
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Stops the threads of the search, the search cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static final long NANOS_PER_MILLI = 1_000_000;
+    private static final int ROOT = 0;
+    private static final int NO_NODE = -1;
+    // States of nodes
+    private static final int NEW = 0;
+    private static final int EXPANDING = 1;
+    private static final int EXPANDED = 2;
+    private static final int LEAF = 3;
+    // Rewards are doubled so that a draw is a whole number
+    private static final int WIN_REWARD = 2;
+    private static final int DRAW_REWARD = 1;
+    private static final int PER_MILLE = 1000;
+    private static final double EXPLORATION = 1.4;
+    private static final int EXPANSION_VISITS = 4;
+    private static final int MAX_PLAYOUT_MOVES = 1000;
+    private static final int MAX_MINIMUM_PLAYOUTS = 256;
+    private static final int INITIAL_PATH_CAPACITY = 64;
+    private static final String ENGINE_NAME = "mcts";
+    private static final SearchMetrics METRICS = SearchMetrics.forEngine(ENGINE_NAME);
+
+    private final SplittableRandom random;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    // Nodes of the tree, the arrays are written by the expanding thread before
+    // the state of the node is set to EXPANDED, which publishes them to other threads
+    private final int[] firstChildren;
+    private final int[] childrenCounts;
+    private final int[] moves;
+    private final AtomicIntegerArray states;
+    private final AtomicIntegerArray visits;
+    private final AtomicIntegerArray virtualLosses;
+    private final AtomicIntegerArray rewards;
+    private final AtomicInteger nodesCount = new AtomicInteger();
+    private final AtomicLong playouts = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private SearchLimits limits;
+    private BooleanSupplier stopCondition;
+    private long deadline;
+    private long playoutsLimit;
+    private long minimumPlayouts;
+    private int rootPlayerId;
+    private volatile boolean stopped;
+
+    /**
+     * Searches for the best move of a player by playouts from the root.
+     * @param state The current state, it must not be terminal.
+     * @param playerId The ID of the player on the move.
+     * @param limits The limits of the search.
+     * @return The result of the search.
+     */
+    private SearchResult searchBestMove(BoardState state, int playerId, SearchLimits limits) {
+        long startTime = System.nanoTime();
+        this.limits = limits;
+        deadline = startTime + limits.timeLimitMillis() * NANOS_PER_MILLI;
+        playoutsLimit = limits.hasNodeLimit() || limits.hasTimeLimit() ? limits.nodeLimit() : DEFAULT_PLAYOUTS_COUNT;
+        playouts.set(0);
+        maxDepth.set(0);
+        rootPlayerId = playerId;
+        nodesCount.set(1);
+        initializeNode(ROOT);
+        SearchIterationEvent event = new SearchIterationEvent();
+        event.begin();
+
+        Worker rootWorker = new Worker(state, random.split());
+        rootWorker.expand(ROOT, playerId);
+        // Every move at the root is played out before limits apply, except on large boards,
+        // where that alone would exceed a short time limit
+        minimumPlayouts = Math.min(childrenCounts[ROOT], MAX_MINIMUM_PLAYOUTS);
+        if (pool == null) {
+            rootWorker.run();
+        } else {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                Worker worker = new Worker(state, random.split());
+                tasks.add(() -> {
+                    worker.run();
+                    return null;
+                });
+            }
+            List<Future<Void>> results = pool.invokeAll(tasks);
+            try {
+                for (Future<Void> result : results) {
+                    result.get();
+                }
+            } catch (InterruptedException | ExecutionException ex) {
+                throw new IllegalStateException("Search of the tree failed", ex);
+            }
+        }
+
+        if (event.shouldCommit()) {
+            event.engine = ENGINE_NAME;
+            event.depth = maxDepth.get();
+            event.nodes = playouts.get();
+            event.completed = true;
+            event.commit();
+        }
+
+        int firstChild = firstChildren[ROOT];
+        int bestChild = firstChild;
+        List<Integer> bestChildren = new ArrayList<>();
+        for (int child = firstChild; child < firstChild + childrenCounts[ROOT]; child++) {
+            if (visits.get(child) > visits.get(bestChild)) {
+                bestChild = child;
+                bestChildren.clear();
+            }
+            if (visits.get(child) == visits.get(bestChild)) {
+                bestChildren.add(child);
+            }
+        }
+        bestChild = bestChildren.get(random.nextInt(bestChildren.size()));
+        int childVisits = visits.get(bestChild);
+        // Computed in long, rewards multiplied by the scale could overflow after about a million visits
+        int value = childVisits == 0 ? 0 : (int)((long)rewards.get(bestChild) * PER_MILLE / (WIN_REWARD * childVisits));
+        Board board = state.getBoard();
+        List<SquarePosition> principalVariation = new ArrayList<>();
+        for (int node = bestChild; node != NO_NODE; node = findMostVisitedChild(node)) {
+            principalVariation.add(board.getPosition(moves[node]));
+        }
+        long timeMillis = (System.nanoTime() - startTime) / NANOS_PER_MILLI;
+        SearchStatistics statistics = SearchStatistics.of(
+                maxDepth.get(), playouts.get(), timeMillis, principalVariation);
+        METRICS.add(statistics);
+        return new SearchResult(board.getPosition(moves[bestChild]), value, statistics);
+    }
+
+    /**
+     * Resets a node allocated in the tree.
+     * @param node The index of the node.
+     */
+    private void initializeNode(int node) {
+        states.set(node, NEW);
+        visits.set(node, 0);
+        virtualLosses.set(node, 0);
+        rewards.set(node, 0);
+    }
+
+    /**
+     * Allocates consecutive nodes in the tree.
+     * @param count The number of nodes.
+     * @return The index of the first node, or NO_NODE if the tree is full.
+     */
+    private int allocateNodes(int count) {
+        while (true) {
+            int first = nodesCount.get();
+            if (first + count > firstChildren.length) {
+                return NO_NODE;
+            }
+            if (nodesCount.compareAndSet(first, first + count)) {
+                return first;
+            }
+        }
+    }
+
+    /**
+     * Finds the child of a node visited most often.
+     * @param node The index of the node.
+     * @return The index of the child, or NO_NODE if the node is not expanded or has no visited children.
+     */
+    private int findMostVisitedChild(int node) {
+        if (states.get(node) != EXPANDED) {
+            return NO_NODE;
+        }
+        int bestChild = NO_NODE;
+        int bestVisits = 0;
+        int firstChild = firstChildren[node];
+        for (int child = firstChild; child < firstChild + childrenCounts[node]; child++) {
+            if (visits.get(child) > bestVisits) {
+                bestVisits = visits.get(child);
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Creates a daemon thread for the pool of the search.
+     * @param pool The pool.
+     * @return The thread.
+     */
+    private static ForkJoinWorkerThread createWorkerThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Runs iterations of the search on its own position.
+     */
+    private final class Worker {
+
+        /**
+         * Creates a worker.
+         * @param state The state at the root of the search.
+         * @param random The random generator of playouts.
+         */
+        Worker(BoardState state, SplittableRandom random) {
+            position = new Position(state);
+            this.random = random;
+            playersCount = state.getAllElectronCounts().length;
+        }
+
+        /**
+         * Runs iterations until the search exceeds its limits.
+         */
+        void run() {
+            long totalPlayouts = playouts.get();
+            while (totalPlayouts < minimumPlayouts || !shouldStop(totalPlayouts)) {
+                iterate();
+                totalPlayouts = playouts.incrementAndGet();
+            }
+            maxDepth.accumulateAndGet(workerMaxDepth, Math::max);
+        }
+
+        /**
+         * Expands a node by adding a child for every move of the player on the move.
+         * A terminal node is expanded without children.
+         * @param node The index of the node, it must be reserved for expansion by the caller.
+         * @param playerId The ID of the player on the move.
+         */
+        void expand(int node, int playerId) {
+            int count = 0;
+            if (!position.isTerminal()) {
+                for (int target = 0; target < position.getSquaresCount(); target++) {
+                    if (position.canPlayerTarget(playerId, target)) {
+                        count++;
+                    }
+                }
+            }
+            int firstChild = allocateNodes(count);
+            if (firstChild == NO_NODE) {
+                states.set(node, LEAF);
+                return;
+            }
+            int child = firstChild;
+            for (int target = 0; count > 0 && target < position.getSquaresCount(); target++) {
+                if (position.canPlayerTarget(playerId, target)) {
+                    moves[child] = target;
+                    initializeNode(child);
+                    child++;
+                }
+            }
+            firstChildren[node] = firstChild;
+            childrenCounts[node] = count;
+            states.set(node, EXPANDED);
+        }
+
+        private final Position position;
+        private final SplittableRandom random;
+        private final int playersCount;
+        private int[] path = new int[INITIAL_PATH_CAPACITY];
+        private int[] pathPlayerIds = new int[INITIAL_PATH_CAPACITY];
+        private int workerMaxDepth;
+
+        /**
+         * Runs one iteration of the search: selection, expansion, playout and backpropagation.
+         */
+        private void iterate() {
+            int node = ROOT;
+            int playerId = rootPlayerId;
+            int depth = 0;
+            while (true) {
+                int state = states.get(node);
+                if (state == NEW) {
+                    if (visits.get(node) < EXPANSION_VISITS || !states.compareAndSet(node, NEW, EXPANDING)) {
+                        break;
+                    }
+                    expand(node, playerId);
+                    state = states.get(node);
+                }
+                if (state != EXPANDED || childrenCounts[node] == 0) {
+                    break;
+                }
+                node = selectChild(node);
+                virtualLosses.incrementAndGet(node);
+                position.makeMove(moves[node], playerId);
+                depth++;
+                if (depth == path.length) {
+                    growPath();
+                }
+                path[depth] = node;
+                pathPlayerIds[depth] = playerId;
+                playerId = position.getNextPlayerId(playerId);
+            }
+            workerMaxDepth = Math.max(workerMaxDepth, depth);
+
+            int movesCount = playout(playerId);
+            int winnerId = getWinnerId();
+            for (int i = 0; i < depth + movesCount; i++) {
+                position.unmakeMove();
+            }
+
+            visits.incrementAndGet(ROOT);
+            for (int i = 1; i <= depth; i++) {
+                int pathNode = path[i];
+                int reward;
+                if (winnerId == pathPlayerIds[i]) {
+                    reward = WIN_REWARD;
+                } else if (winnerId == Board.NO_PLAYER_ID) {
+                    reward = DRAW_REWARD;
+                } else {
+                    reward = 0;
+                }
+                rewards.addAndGet(pathNode, reward);
+                visits.incrementAndGet(pathNode);
+                virtualLosses.decrementAndGet(pathNode);
+            }
+        }
+
+        /**
+         * Selects the child of a node with the highest UCT value.
+         * Virtual losses count as visits without reward.
+         * @param node The index of the node, it must be expanded and have children.
+         * @return The index of the selected child.
+         */
+        private int selectChild(int node) {
+            int firstChild = firstChildren[node];
+            int lastChild = firstChild + childrenCounts[node];
+            double logVisits = Math.log(visits.get(node) + virtualLosses.get(node) + 1);
+            int bestChild = firstChild;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int child = firstChild; child < lastChild; child++) {
+                int childVisits = visits.get(child) + virtualLosses.get(child);
+                if (childVisits == 0) {
+                    return child;
+                }
+                double value = rewards.get(child) / (double)(WIN_REWARD * childVisits)
+                        + EXPLORATION * Math.sqrt(logVisits / childVisits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestChild = child;
+                }
+            }
+            return bestChild;
+        }
+
+        /**
+         * Plays random moves until the game ends or the maximum number of moves is reached.
+         * @param playerId The ID of the player on the move.
+         * @return The number of moves that were made.
+         */
+        private int playout(int playerId) {
+            int squaresCount = position.getSquaresCount();
+            int movesCount = 0;
+            while (movesCount < MAX_PLAYOUT_MOVES && !position.isTerminal()) {
+                int target;
+                do {
+                    target = random.nextInt(squaresCount);
+                } while (!position.canPlayerTarget(playerId, target));
+                position.makeMove(target, playerId);
+                movesCount++;
+                playerId = position.getNextPlayerId(playerId);
+            }
+            return movesCount;
+        }
+
+        /**
+         * Gets the winner of the position, a game that did not end is won by the player with most electrons.
+         * @return The ID of the winner, or NO_PLAYER_ID if more players have the most electrons.
+         */
+        private int getWinnerId() {
+            int winnerId = Board.NO_PLAYER_ID;
+            int winnerElectrons = -1;
+            for (int playerId = 0; playerId < playersCount; playerId++) {
+                int electrons = position.getElectronsCount(playerId);
+                if (electrons > winnerElectrons) {
+                    winnerId = playerId;
+                    winnerElectrons = electrons;
+                } else if (electrons == winnerElectrons) {
+                    winnerId = Board.NO_PLAYER_ID;
+                }
+            }
+            return winnerId;
+        }
+
+        /**
+         * Checks whether the search exceeded its limits or was asked to stop.
+         * @param totalPlayouts The number of playouts of all workers.
+         * @return True if the search should stop, otherwise false.
+         */
+        private boolean shouldStop(long totalPlayouts) {
+            if (stopped
+                    || stopCondition.getAsBoolean()
+                    || (limits.hasTimeLimit() && System.nanoTime() - deadline > 0)
+                    || (playoutsLimit > 0 && totalPlayouts >= playoutsLimit)) {
+                stopped = true;
+            }
+            return stopped;
+        }
+
+        /**
+         * Doubles the capacity of the path.
+         */
+        private void growPath() {
+            int[] newPath = new int[path.length * 2];
+            System.arraycopy(path, 0, newPath, 0, path.length);
+            path = newPath;
+            int[] newPathPlayerIds = new int[pathPlayerIds.length * 2];
+            System.arraycopy(pathPlayerIds, 0, newPathPlayerIds, 0, pathPlayerIds.length);
+            pathPlayerIds = newPathPlayerIds;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package atoms.model;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Chooses moves of AI players without the rest of the game.
+ *
+ * A move is taken from the opening book while the position is in it, in an endgame
+ * of two players it is chosen by the exact {@link EndgameSolver}, and otherwise by
+ * the search of the engine of the player. The game model and the tournament choose
+ * moves the same way, so both play with the same optimisations.
+ *
+ * A chooser must not be used by more searches at the same time.
+ */
+public final class MoveChooser {
+
+    /**
+     * Creates a chooser.
+     * @param openingBook The opening book, or null if no book should be used.
+     * @param endgameThreshold The threshold of the endgame, see {@link #setEndgameThreshold(int)}.
+     */
+    public MoveChooser(OpeningBook openingBook, int endgameThreshold) {
+        this.openingBook = openingBook;
+        this.endgameThreshold = endgameThreshold;
+    }
+
+    /**
+     * Sets the opening book, moves are taken from the book while the position is in it.
+     * @param openingBook The opening book, or null if no book should be used.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Sets the threshold of the endgame, where moves are chosen by the exact solver.
+     * The solver is used only in games of two players.
+     * @param squaresCount The endgame starts when a player owns at most this number of squares
+     * and at least half of the board is occupied, zero disables the solver.
+     */
+    public void setEndgameThreshold(int squaresCount) {
+        endgameThreshold = squaresCount;
+    }
+
+    /**
+     * Chooses a move of a player from the opening book, by the endgame solver,
+     * or by the engine of the player. The solver and the engine share the time limit of the player.
+     * @param engine The engine of the player.
+     * @param state The state where the player moves, it must not be terminal.
+     * @param playerId The ID of the player.
+     * @param limits The limits of the search of the player.
+     * @param stopCondition The condition stopping the endgame solver and the search of the engine.
+     * @return The result of the search, a move from the book has zero depth and nodes.
+     */
+    public SearchResult choose(AIEngine engine, BoardState state, int playerId, SearchLimits limits,
+            BooleanSupplier stopCondition) {
+        long startTime = System.nanoTime();
+        if (openingBook != null) {
+            SquarePosition bookMove = openingBook.probe(state, playerId);
+            if (bookMove != null) {
+                long timeMillis = (System.nanoTime() - startTime) / NANOS_PER_MILLI;
+                return new SearchResult(bookMove, 0, SearchStatistics.of(0, 0, timeMillis, List.of(bookMove)));
+            }
+        }
+        SearchLimits engineLimits = limits;
+        if (isEndgame(state)) {
+            if (endgameSolver == null) {
+                endgameSolver = new EndgameSolver();
+            }
+            EndgameSolver.Solution solution = endgameSolver.solve(
+                    state, playerId, limits.timeLimitMillis(), stopCondition);
+            long timeMillis = (System.nanoTime() - startTime) / NANOS_PER_MILLI;
+            if (solution.outcome() != EndgameSolver.Outcome.UNKNOWN) {
+                boolean currentPlayerWins = solution.outcome() == EndgameSolver.Outcome.WIN;
+                boolean firstPlayerWins = currentPlayerWins == (playerId == 0);
+                int value = firstPlayerWins ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+                return new SearchResult(solution.target(), value, SearchStatistics.of(
+                        solution.distance(), solution.nodes(), timeMillis, List.of(solution.target())));
+            }
+            if (limits.hasTimeLimit()) {
+                long remainingMillis = Math.max(limits.timeLimitMillis() - timeMillis, 1);
+                engineLimits = new SearchLimits(limits.maxDepth(), remainingMillis, limits.nodeLimit());
+            }
+        }
+        return engine.search(state, playerId, engineLimits, stopCondition);
+    }
+
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    private OpeningBook openingBook;
+    private int endgameThreshold;
+    // Created by the first endgame, because its transposition table is large
+    private EndgameSolver endgameSolver;
+
+    /**
+     * Checks whether a player was reduced to so few squares that the endgame solver should be used.
+     * Players own few squares at the start of the game too, so the board must be at least half occupied.
+     * @param state The state to check.
+     * @return True if the position is an endgame, otherwise false.
+     */
+    private boolean isEndgame(BoardState state) {
+        if (endgameThreshold == 0
+                || state.getPlayersCount() != EndgameSolver.PLAYERS_COUNT
+                || !state.allPlayersMoved()) {
+            return false;
+        }
+        Board board = state.getBoard();
+        int[] squareCounts = new int[EndgameSolver.PLAYERS_COUNT];
+        int occupiedSquaresCount = 0;
+        for (int index = 0; index < board.getSquaresCount(); index++) {
+            int playerId = board.getPlayerId(index);
+            if (playerId != Board.NO_PLAYER_ID) {
+                squareCounts[playerId]++;
+                occupiedSquaresCount++;
+            }
+        }
+        if (occupiedSquaresCount * 2 < board.getSquaresCount()) {
+            return false;
+        }
+        for (int squaresCount : squareCounts) {
+            if (squaresCount <= endgameThreshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
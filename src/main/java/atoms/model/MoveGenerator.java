@@ -1,9 +1,8 @@
 package atoms.model;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Queue;
 
 /**
  * Generator for moves.
@@ -35,8 +34,8 @@ public class MoveGenerator {
      * @return The generated move.
      */
     public static BoardState generateMove(BoardState state, int playerId, SquarePosition target) {
-        Square targetSquare = state.getBoard().getSquare(target);
-        if (!canPlayerTargetSquare(playerId, targetSquare)) {
+        Board board = state.getBoard();
+        if (!canPlayerTargetSquare(playerId, board.getPlayerId(board.getIndex(target)))) {
             return null;
         }
         boolean allPlayersMoved = state.allPlayersMoved();
@@ -45,51 +44,92 @@ public class MoveGenerator {
 
     /**
      * Generates a detailed move of a player.
+     *
+     * Only a square that changed in a phase can explode in the next phase, so explosions
+     * are searched among the explosions and targets of the previous phase instead of
+     * the whole board, and the cost of the move depends on the length of the chain reaction.
+     * Phases keep only the squares they changed, the board is copied once for the whole move.
      * @param state The initial state.
      * @param playerId The ID of the player making the move.
      * @param target The chosen square.
      * @return The generated detailed move.
      */
     public static DetailedMove generateDetailedMove(BoardState state, int playerId, SquarePosition target) {
-        Square targetSquare = state.getBoard().getSquare(target);
-        if (!canPlayerTargetSquare(playerId, targetSquare)) {
+        Board initialBoard = state.getBoard();
+        if (!canPlayerTargetSquare(playerId, initialBoard.getPlayerId(initialBoard.getIndex(target)))) {
             return null;
         }
         List<DetailedMovePhase> phases = new ArrayList<>();
         int[] playerElectronCounts = state.getAllElectronCounts().clone();
         playerElectronCounts[playerId]++;
         boolean allPlayersMoved = state.allPlayersMoved();
-        Board board = state.getBoard().deepCopy();
-        phases.add(performFirstPhase(board, playerId, target));
-        List<SquarePosition> explosions = findExplosions(board);
+        Board board = initialBoard.deepCopy();
+        DetailedMovePhase phase = performFirstPhase(board, playerId, target);
+        phases.add(phase);
+        List<SquarePosition> explosions = findExplosions(board, phase);
         while (explosions.size() > 0 && !playerStoleAllElectrons(playerId, playerElectronCounts, allPlayersMoved)) {
-            DetailedMovePhase phase = performPhase(board, playerId, playerElectronCounts, explosions);
+            phase = performPhase(board, playerId, playerElectronCounts, explosions);
             phases.add(phase);
-            explosions = findExplosions(board);
+            explosions = findExplosions(board, phase);
         }
-        return new DetailedMove(playerId, phases);
+        return new DetailedMove(playerId, initialBoard, phases);
     }
 
+    private static final ThreadLocal<ChainReactionResolver> resolvers =
+            ThreadLocal.withInitial(ChainReactionResolver::new);
+
     /**
-     * Finds all explosions on the board.
-     * @param board The board.
-     * @return A list of all found explosions.
+     * Finds explosions among the squares changed by a phase.
+     * Explosions are ordered by rows and columns, as if the whole board was scanned.
+     * @param board The board after the phase.
+     * @param phase The previous phase.
+     * @return A list of explosions of the next phase.
      */
-    private static List<SquarePosition> findExplosions(Board board) {
+    private static List<SquarePosition> findExplosions(Board board, DetailedMovePhase phase) {
+        BoardGeometry geometry = board.getGeometry();
         List<SquarePosition> explosions = new ArrayList<>();
-        for (int i = 0; i < board.getSize(); i++) {
-            for (int j = 0; j < board.getSize(); j++) {
-                SquarePosition position = new SquarePosition(i, j);
-                Square square = board.getSquare(position);
-                List<SquarePosition> explosionTargets = getExplosionTargets(board, position);
-                if (square.electronsCount() >= explosionTargets.size()) {
-                    explosions.add(position);
-                }
+        for (SquareChange change : phase.changes()) {
+            int index = board.getIndex(change.position());
+            if (change.square().electronsCount() >= geometry.getCriticalMass(index)) {
+                explosions.add(change.position());
             }
         }
         return explosions;
     }
 
+    /**
+     * Collects the squares changed by a phase, which are its explosions and their targets.
+     * @param board The board after the phase.
+     * @param explosions Positions of explosions of the phase.
+     * @param targets Positions of explosion targets of the phase.
+     * @return The changed squares ordered by rows and columns.
+     */
+    private static List<SquareChange> collectChanges(
+            Board board,
+            List<SquarePosition> explosions,
+            List<SquarePosition> targets) {
+        int[] changedSquares = new int[explosions.size() + targets.size()];
+        int changedSquaresCount = 0;
+        for (SquarePosition explosion : explosions) {
+            changedSquares[changedSquaresCount++] = board.getIndex(explosion);
+        }
+        for (SquarePosition target : targets) {
+            changedSquares[changedSquaresCount++] = board.getIndex(target);
+        }
+        Arrays.sort(changedSquares);
+        List<SquareChange> changes = new ArrayList<>();
+        for (int i = 0; i < changedSquaresCount; i++) {
+            int index = changedSquares[i];
+            // A square can be a target of several explosions, its copies are next to each other
+            if (i > 0 && changedSquares[i - 1] == index) {
+                continue;
+            }
+            SquarePosition position = board.getPosition(index);
+            changes.add(new SquareChange(position, board.getSquare(position)));
+        }
+        return changes;
+    }
+
     /**
      * Perform the first phase of a detailed move.
      * @param board The board.
@@ -101,10 +141,10 @@ public class MoveGenerator {
         List<SquarePosition> explosions = new ArrayList<>();
         List<SquarePosition> targets = new ArrayList<>();
         targets.add(target);
-        Square targetSquare = board.getSquare(target);
-        int newElectronsCount = targetSquare.electronsCount() + 1;
-        board.setSquare(target, new Square(playerId, newElectronsCount));
-        return new DetailedMovePhase(explosions, targets, board.deepCopy());
+        int targetIndex = board.getIndex(target);
+        int newElectronsCount = board.getElectronsCount(targetIndex) + 1;
+        board.setSquare(targetIndex, playerId, newElectronsCount);
+        return new DetailedMovePhase(explosions, targets, collectChanges(board, explosions, targets));
     }
 
     /**
@@ -125,10 +165,10 @@ public class MoveGenerator {
             List<SquarePosition> explosionTargets = getExplosionTargets(board, explosion);
             targets.addAll(explosionTargets);
             for (SquarePosition explosionTarget : explosionTargets) {
-                Square square = board.getSquare(explosionTarget);
-                int oldPlayerId = square.playerId();
+                int index = board.getIndex(explosionTarget);
+                int oldPlayerId = board.getPlayerId(index);
                 int newPlayerId = playerId;
-                int oldElectronsCount = square.electronsCount();
+                int oldElectronsCount = board.getElectronsCount(index);
                 int newElectronsCount = oldElectronsCount + 1;
                 if (oldPlayerId != playerId) {
                     if (oldPlayerId != Board.NO_PLAYER_ID) {
@@ -136,24 +176,23 @@ public class MoveGenerator {
                     }
                     playerElectronCounts[playerId] += oldElectronsCount;
                 }
-                board.setSquare(explosionTarget, new Square(newPlayerId, newElectronsCount));
+                board.setSquare(index, newPlayerId, newElectronsCount);
             }
-            Square explosionSquare = board.getSquare(explosion);
+            int explosionIndex = board.getIndex(explosion);
             int minElectronsCountForExplosion = explosionTargets.size();
-            int electronsCountAfterExplosion = explosionSquare.electronsCount() - minElectronsCountForExplosion;
-            board.setSquare(explosion, new Square(playerId, electronsCountAfterExplosion));
+            int electronsCountAfterExplosion = board.getElectronsCount(explosionIndex) - minElectronsCountForExplosion;
+            board.setSquare(explosionIndex, playerId, electronsCountAfterExplosion);
         }
-        return new DetailedMovePhase(explosions, targets, board.deepCopy());
+        return new DetailedMovePhase(explosions, targets, collectChanges(board, explosions, targets));
     }
 
     /**
      * Checks whether a player can add an electron to the given square.
      * @param playerId The ID of the player.
-     * @param targetSquare The targeted square.
+     * @param squarePlayerId The ID of the player that owns the targeted square.
      * @return True if the player can add an electron to the square, otherwise false.
      */
-    private static boolean canPlayerTargetSquare(int playerId, Square targetSquare) {
-        int squarePlayerId = targetSquare.playerId();
+    private static boolean canPlayerTargetSquare(int playerId, int squarePlayerId) {
         return squarePlayerId == Board.NO_PLAYER_ID || squarePlayerId == playerId;
     }
 
@@ -167,8 +206,7 @@ public class MoveGenerator {
         List<SquarePosition> origins = new ArrayList<>();
         for (int i = 0; i < board.getSize(); i++) {
             for (int j = 0; j < board.getSize(); j++) {
-                Square square = board.getSquare(i, j);
-                if (canPlayerTargetSquare(playerId, square)) {
+                if (canPlayerTargetSquare(playerId, board.getPlayerId(board.getIndex(i, j)))) {
                     origins.add(new SquarePosition(i, j));
                 }
             }
@@ -177,12 +215,12 @@ public class MoveGenerator {
     }
 
     /**
-     * Creates the next board state
-     * @param state
-     * @param target
-     * @param playerId
-     * @param allPlayersMoved
-     * @return
+     * Creates the next board state.
+     * @param state The initial state.
+     * @param target The chosen square.
+     * @param playerId The ID of the player making the move.
+     * @param allPlayersMoved An indicator whether all players have made a move.
+     * @return The next board state.
      */
     private static BoardState createNextBoardState(
             BoardState state,
@@ -190,36 +228,8 @@ public class MoveGenerator {
             int playerId,
             boolean allPlayersMoved) {
         int[] playerElectronCounts = state.getAllElectronCounts().clone();
-        playerElectronCounts[playerId]++;
         Board board = state.getBoard().deepCopy();
-        Queue<SquarePosition> targets = new LinkedList<>();
-        targets.add(target);
-        while (!targets.isEmpty() && !playerStoleAllElectrons(playerId, playerElectronCounts, allPlayersMoved)) {
-            SquarePosition currentTarget = targets.remove();
-            Square currentTargetSquare = board.getSquare(currentTarget);
-            List<SquarePosition> explosionTargets = getExplosionTargets(board, currentTarget);
-            int minElectronsCountForExplosion = explosionTargets.size();
-            int oldElectronsCount = currentTargetSquare.electronsCount();
-            int newElectronsCount = oldElectronsCount + 1;
-            if (newElectronsCount >= minElectronsCountForExplosion) {
-                newElectronsCount -= minElectronsCountForExplosion;
-                targets.addAll(explosionTargets);
-            }
-            int oldPlayerId = currentTargetSquare.playerId();
-            if (oldPlayerId != playerId) {
-                if (oldPlayerId != Board.NO_PLAYER_ID) {
-                    playerElectronCounts[oldPlayerId] -= oldElectronsCount;
-                }
-                playerElectronCounts[playerId] += oldElectronsCount;
-            }
-            int newPlayerId;
-            if (newElectronsCount == 0) {
-                newPlayerId = Board.NO_PLAYER_ID;
-            } else {
-                newPlayerId = playerId;
-            }
-            board.setSquare(currentTarget, new Square(newPlayerId, newElectronsCount));
-        }
+        resolvers.get().resolve(board, board.getIndex(target), playerId, playerElectronCounts, allPlayersMoved);
         return new BoardState(board, target, playerElectronCounts);
     }
 
@@ -230,7 +240,7 @@ public class MoveGenerator {
      * @param allPlayersMoved An indicator whether all players have made a move.
      * @return True if the player stole all electrons from other players, otherwise false.
      */
-    private static boolean playerStoleAllElectrons(int playerId, int[] playerElectronCounts, boolean allPlayersMoved) {
+    static boolean playerStoleAllElectrons(int playerId, int[] playerElectronCounts, boolean allPlayersMoved) {
         if (!allPlayersMoved) {
             return false;
         }
@@ -0,0 +1,156 @@
+package atoms.model;
+
+import java.util.Arrays;
+
+/**
+ * Orders moves in the minimax search so that good moves are searched first
+ * and alpha-beta pruning cuts off more of the tree.
+ *
+ * Moves are tried in this order:
+ * the best move from the transposition table, two killer moves of the ply
+ * (moves that caused a cutoff in a sibling node), moves onto squares that
+ * explode after adding an electron, and the remaining moves by the history
+ * heuristic (how often and how deep a move caused a cutoff). Moves with
+ * equal scores keep their order on the board.
+ *
+ * The tables are not thread-safe, every search thread needs its own instance.
+ */
+final class MoveOrdering {
+
+    /**
+     * Creates move ordering tables.
+     */
+    MoveOrdering() {
+        Arrays.fill(killers, TranspositionTable.NO_MOVE);
+    }
+
+    /**
+     * Prepares the tables for a search, the history from older searches is aged.
+     * @param searchId The ID of the search.
+     * @param squaresCount The number of squares on the board.
+     * @param playersCount The number of players.
+     * @param enabled An indicator whether moves should be ordered,
+     * otherwise only the move from the transposition table is tried first.
+     */
+    void prepare(long searchId, int squaresCount, int playersCount, boolean enabled) {
+        if (history.length != squaresCount * playersCount) {
+            history = new int[squaresCount * playersCount];
+            moves = new int[MAX_PLY][squaresCount];
+            scores = new int[MAX_PLY][squaresCount];
+            Arrays.fill(killers, TranspositionTable.NO_MOVE);
+            this.squaresCount = squaresCount;
+        } else if (searchId != this.searchId) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] /= 2;
+            }
+        }
+        this.searchId = searchId;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Generates scored moves of a player for a ply.
+     * @param position The position.
+     * @param playerId The ID of the player on the move.
+     * @param ply The distance from the root of the search.
+     * @param hashMove The best move from the transposition table, or NO_MOVE.
+     * @return The number of generated moves.
+     */
+    int generateMoves(Position position, int playerId, int ply, int hashMove) {
+        Board board = position.getBoard();
+        BoardGeometry geometry = board.getGeometry();
+        int[] plyMoves = moves[ply];
+        int[] plyScores = scores[ply];
+        int killer1 = killers[ply * KILLERS_PER_PLY];
+        int killer2 = killers[ply * KILLERS_PER_PLY + 1];
+        int historyOffset = playerId * squaresCount;
+        int count = 0;
+        for (int target = 0; target < squaresCount; target++) {
+            if (!position.canPlayerTarget(playerId, target)) {
+                continue;
+            }
+            int score;
+            if (target == hashMove) {
+                score = HASH_MOVE_SCORE;
+            } else if (!enabled) {
+                score = 0;
+            } else if (target == killer1) {
+                score = FIRST_KILLER_SCORE;
+            } else if (target == killer2) {
+                score = SECOND_KILLER_SCORE;
+            } else if (board.getElectronsCount(target) == geometry.getCriticalMass(target) - 1) {
+                score = EXPLOSION_SCORE + history[historyOffset + target];
+            } else {
+                score = history[historyOffset + target];
+            }
+            plyMoves[count] = target;
+            plyScores[count] = score;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Selects the best of the remaining moves of a ply and moves it to the given index.
+     * @param ply The distance from the root of the search.
+     * @param index The index of the move to select, moves before it were already tried.
+     * @param count The number of generated moves.
+     * @return The selected move.
+     */
+    int selectMove(int ply, int index, int count) {
+        int[] plyMoves = moves[ply];
+        int[] plyScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            // Shift the skipped moves so that moves with equal scores keep their order
+            int move = plyMoves[best];
+            int score = plyScores[best];
+            System.arraycopy(plyMoves, index, plyMoves, index + 1, best - index);
+            System.arraycopy(plyScores, index, plyScores, index + 1, best - index);
+            plyMoves[index] = move;
+            plyScores[index] = score;
+        }
+        return plyMoves[index];
+    }
+
+    /**
+     * Records a move that caused a cutoff.
+     * @param ply The distance from the root of the search.
+     * @param playerId The ID of the player who made the move.
+     * @param move The move.
+     * @param depth The remaining depth of the search.
+     */
+    void recordCutoff(int ply, int playerId, int move, int depth) {
+        if (!enabled) {
+            return;
+        }
+        int offset = ply * KILLERS_PER_PLY;
+        if (killers[offset] != move) {
+            killers[offset + 1] = killers[offset];
+            killers[offset] = move;
+        }
+        int index = playerId * squaresCount + move;
+        history[index] = Math.min(history[index] + depth * depth, MAX_HISTORY_SCORE);
+    }
+
+    private static final int MAX_PLY = SearchLimits.MAX_DEPTH + 1;
+    private static final int KILLERS_PER_PLY = 2;
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int FIRST_KILLER_SCORE = 1 << 29;
+    private static final int SECOND_KILLER_SCORE = 1 << 28;
+    private static final int EXPLOSION_SCORE = 1 << 27;
+    private static final int MAX_HISTORY_SCORE = (1 << 27) - 1;
+
+    private final int[] killers = new int[MAX_PLY * KILLERS_PER_PLY];
+    private int[] history = new int[0];
+    private int[][] moves;
+    private int[][] scores;
+    private int squaresCount;
+    private long searchId;
+    private boolean enabled;
+}
@@ -0,0 +1,158 @@
+package atoms.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Book of precomputed best moves in opening positions, stored in a binary file.
+ *
+ * The file starts with a header (magic number, version, board size, number of
+ * players and number of entries) followed by entries sorted by key. Each entry
+ * consists of the key of a position, which is its canonical hash combined with
+ * the player on the move, and the best move in the canonical form of the position.
+ * The file is mapped into memory and searched by binary search, so the entries
+ * are never loaded into the heap.
+ *
+ * Books are created offline by the OpeningBookBuilder tool.
+ */
+public final class OpeningBook {
+
+    /**
+     * Opens a book from a file.
+     * @param path The path to the file.
+     * @return The book.
+     * @throws IOException If the file cannot be read or is not a valid book.
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE
+                || buffer.getInt(MAGIC_OFFSET) != MAGIC
+                || buffer.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException("Not an opening book: " + path);
+        }
+        int entriesCount = buffer.getInt(ENTRIES_COUNT_OFFSET);
+        if (buffer.capacity() != HEADER_SIZE + (long)entriesCount * ENTRY_SIZE) {
+            throw new IOException("Truncated opening book: " + path);
+        }
+        return new OpeningBook(buffer, buffer.getInt(BOARD_SIZE_OFFSET), buffer.getInt(PLAYERS_COUNT_OFFSET),
+                entriesCount);
+    }
+
+    /**
+     * Writes a book into a file.
+     * @param path The path to the file.
+     * @param boardSize The size of the board.
+     * @param playersCount The number of players.
+     * @param entries The best moves in the canonical form by keys of positions.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path path, int boardSize, int playersCount, Map<Long, Integer> entries)
+            throws IOException {
+        SortedMap<Long, Integer> sortedEntries = new TreeMap<>(entries);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + sortedEntries.size() * ENTRY_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(boardSize).putInt(playersCount).putInt(sortedEntries.size());
+        for (Map.Entry<Long, Integer> entry : sortedEntries.entrySet()) {
+            buffer.putLong(entry.getKey()).putShort((short)(int)entry.getValue());
+        }
+        try (OutputStream output = Files.newOutputStream(path)) {
+            output.write(buffer.array());
+        }
+    }
+
+    /**
+     * Gets the key of a position in the book.
+     * @param position The position.
+     * @param playerId The ID of the player on the move.
+     * @return The key of the position.
+     */
+    public static long getKey(Position position, int playerId) {
+        return position.getCanonicalHash() ^ position.getBoard().getGeometry().getPlayerKey(playerId);
+    }
+
+    /**
+     * Finds the best move of a player in the book.
+     * @param state The current state.
+     * @param playerId The ID of the player on the move.
+     * @return The target square of the best move, or null if the position is not in the book
+     *         or the move stored for it cannot be played, so that the caller searches instead.
+     */
+    public SquarePosition probe(BoardState state, int playerId) {
+        Board board = state.getBoard();
+        if (board.getSize() != boardSize || state.getAllElectronCounts().length != playersCount) {
+            return null;
+        }
+        Position position = new Position(state);
+        long key = getKey(position, playerId);
+        int low = 0;
+        int high = entriesCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = HEADER_SIZE + middle * ENTRY_SIZE;
+            long middleKey = buffer.getLong(offset);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                int canonicalMove = buffer.getShort(offset + Long.BYTES);
+                BoardGeometry geometry = board.getGeometry();
+                if (canonicalMove < 0 || canonicalMove >= geometry.getSquaresCount()) {
+                    return null;
+                }
+                int symmetry = geometry.getInverseSymmetry(position.getCanonicalSymmetry());
+                int move = geometry.getSymmetricSquare(symmetry, canonicalMove);
+                return position.canPlayerTarget(playerId, move) ? board.getPosition(move) : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of positions in the book.
+     * @return The number of positions in the book.
+     */
+    public int getEntriesCount() {
+        return entriesCount;
+    }
+
+    private static final int MAGIC = 0x41544F42;
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int BOARD_SIZE_OFFSET = 8;
+    private static final int PLAYERS_COUNT_OFFSET = 12;
+    private static final int ENTRIES_COUNT_OFFSET = 16;
+    private static final int HEADER_SIZE = 20;
+    private static final int ENTRY_SIZE = Long.BYTES + Short.BYTES;
+
+    private final MappedByteBuffer buffer;
+    private final int boardSize;
+    private final int playersCount;
+    private final int entriesCount;
+
+    /**
+     * Creates a book from a mapped file.
+     * @param buffer The mapped file.
+     * @param boardSize The size of the board.
+     * @param playersCount The number of players.
+     * @param entriesCount The number of entries.
+     */
+    private OpeningBook(MappedByteBuffer buffer, int boardSize, int playersCount, int entriesCount) {
+        this.buffer = buffer;
+        this.boardSize = boardSize;
+        this.playersCount = playersCount;
+        this.entriesCount = entriesCount;
+    }
+}
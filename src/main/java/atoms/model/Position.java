@@ -0,0 +1,258 @@
+package atoms.model;
+
+/**
+ * Mutable board state used by the search, where moves are made and unmade in place.
+ *
+ * Every change of a square caused by a move is recorded on an undo stack
+ * together with the electron counts before the move, so that unmaking a move
+ * restores the previous state without copying the board. Making a move does
+ * not allocate any memory once the stacks are large enough.
+ *
+ * The position also keeps a Zobrist hash of the board, which is updated
+ * with every change of a square, and optionally an {@link Evaluation}
+ * updated the same way. Hashes of the board under all its symmetries are
+ * updated too, the lowest of them is the canonical hash shared by all
+ * symmetric positions.
+ */
+public final class Position {
+
+    /**
+     * Creates a position from a board state, which is not evaluated.
+     * @param state The board state, it is not modified by the position.
+     */
+    public Position(BoardState state) {
+        this(state, null);
+    }
+
+    /**
+     * Creates a position from a board state.
+     * @param state The board state, it is not modified by the position.
+     * @param weights The weights of the evaluation, or null if the position is not evaluated.
+     */
+    public Position(BoardState state, EvaluationWeights weights) {
+        board = state.getBoard().deepCopy();
+        geometry = board.getGeometry();
+        electronCounts = state.getAllElectronCounts().clone();
+        playersCount = electronCounts.length;
+        changes = new int[INITIAL_STACK_CAPACITY];
+        moveStarts = new int[INITIAL_STACK_CAPACITY];
+        savedElectronCounts = new int[INITIAL_STACK_CAPACITY * playersCount];
+        savedHashes = new long[INITIAL_STACK_CAPACITY * BoardGeometry.SYMMETRIES_COUNT];
+        for (int index = 0; index < board.getSquaresCount(); index++) {
+            int keysOffset = geometry.getSymmetricSquareKeysOffset(index, board.getPackedSquare(index));
+            for (int symmetry = 0; symmetry < BoardGeometry.SYMMETRIES_COUNT; symmetry++) {
+                hashes[symmetry] ^= geometry.getSymmetricSquareKey(keysOffset + symmetry);
+            }
+        }
+        evaluation = weights == null ? null : new Evaluation(board, weights, playersCount);
+    }
+
+    /**
+     * Checks whether a player can add an electron to a square.
+     * @param playerId The ID of the player.
+     * @param index The index of the square.
+     * @return True if the player can add an electron to the square, otherwise false.
+     */
+    public boolean canPlayerTarget(int playerId, int index) {
+        int squarePlayerId = board.getPlayerId(index);
+        return squarePlayerId == Board.NO_PLAYER_ID || squarePlayerId == playerId;
+    }
+
+    /**
+     * Makes a move by adding an electron of a player to a square.
+     * @param index The index of the chosen square.
+     * @param playerId The ID of the player making the move.
+     */
+    public void makeMove(int index, int playerId) {
+        if (movesCount == moveStarts.length) {
+            growMoveStack();
+        }
+        moveStarts[movesCount] = changesCount;
+        System.arraycopy(hashes, 0, savedHashes, movesCount * BoardGeometry.SYMMETRIES_COUNT,
+                BoardGeometry.SYMMETRIES_COUNT);
+        System.arraycopy(electronCounts, 0, savedElectronCounts, movesCount * playersCount, playersCount);
+        movesCount++;
+        boolean allPlayersMoved = BoardState.allPlayersMoved(electronCounts);
+        resolver.resolve(board, index, playerId, electronCounts, allPlayersMoved, changeRecorder);
+    }
+
+    /**
+     * Unmakes the last move that was made.
+     */
+    public void unmakeMove() {
+        movesCount--;
+        int moveStart = moveStarts[movesCount];
+        while (changesCount > moveStart) {
+            changesCount -= 2;
+            board.setPackedSquare(changes[changesCount], changes[changesCount + 1]);
+            if (evaluation != null) {
+                evaluation.squareChanged(changes[changesCount]);
+            }
+        }
+        System.arraycopy(savedElectronCounts, movesCount * playersCount, electronCounts, 0, playersCount);
+        System.arraycopy(savedHashes, movesCount * BoardGeometry.SYMMETRIES_COUNT, hashes, 0,
+                BoardGeometry.SYMMETRIES_COUNT);
+    }
+
+    /**
+     * Gets the Zobrist hash of the board.
+     * @return The Zobrist hash of the board.
+     */
+    public long getHash() {
+        return hashes[BoardGeometry.IDENTITY];
+    }
+
+    /**
+     * Gets the symmetry that transforms the board into its canonical form,
+     * which is the symmetric board with the lowest hash.
+     * Moves in the canonical form are obtained by {@link BoardGeometry#getSymmetricSquare(int, int)}.
+     * @return The number of the symmetry.
+     */
+    public int getCanonicalSymmetry() {
+        int canonicalSymmetry = BoardGeometry.IDENTITY;
+        for (int symmetry = 1; symmetry < BoardGeometry.SYMMETRIES_COUNT; symmetry++) {
+            if (hashes[symmetry] < hashes[canonicalSymmetry]) {
+                canonicalSymmetry = symmetry;
+            }
+        }
+        return canonicalSymmetry;
+    }
+
+    /**
+     * Gets the Zobrist hash of the board in its canonical form, which is the same for all symmetric boards.
+     * @return The canonical hash of the board.
+     */
+    public long getCanonicalHash() {
+        return hashes[getCanonicalSymmetry()];
+    }
+
+    /**
+     * Gets the score of a player from the evaluation, which is updated with every change of a square.
+     * @param playerId The ID of the player.
+     * @return The score of the player.
+     * @throws IllegalStateException If the position is not evaluated.
+     */
+    public int getScore(int playerId) {
+        if (evaluation == null) {
+            throw new IllegalStateException("The position is not evaluated");
+        }
+        return evaluation.getScore(playerId);
+    }
+
+    /**
+     * Checks whether the position is terminal (a player won).
+     * @return An indicator whether the position is terminal (a player won).
+     */
+    public boolean isTerminal() {
+        return BoardState.isTerminal(electronCounts);
+    }
+
+    /**
+     * Checks whether a player lost all electrons after all players made a move.
+     * @param playerId The ID of the player.
+     * @return An indicator whether the player is out of the game.
+     */
+    public boolean isEliminated(int playerId) {
+        return BoardState.isEliminated(electronCounts, playerId);
+    }
+
+    /**
+     * Gets the ID of the player who is on the move after the given player, players out of the game are skipped.
+     * @param playerId The ID of the player who made the last move.
+     * @return The ID of the player on the move.
+     */
+    public int getNextPlayerId(int playerId) {
+        return BoardState.getNextPlayerId(electronCounts, playerId);
+    }
+
+    /**
+     * Gets the number of players.
+     * @return The number of players.
+     */
+    public int getPlayersCount() {
+        return playersCount;
+    }
+
+    /**
+     * Gets the number of electrons of a player.
+     * @param playerId The ID of the player.
+     * @return The number of electrons of the player.
+     */
+    public int getElectronsCount(int playerId) {
+        return electronCounts[playerId];
+    }
+
+    /**
+     * Gets the number of squares on the board.
+     * @return The number of squares on the board.
+     */
+    public int getSquaresCount() {
+        return board.getSquaresCount();
+    }
+
+    /**
+     * Gets the board, it must not be modified.
+     * @return The board.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    private static final int INITIAL_STACK_CAPACITY = 64;
+
+    private final ChainReactionResolver resolver = new ChainReactionResolver();
+    private final SquareChangeListener changeRecorder = this::recordChange;
+    private final Board board;
+    private final BoardGeometry geometry;
+    private final int[] electronCounts;
+    private final int playersCount;
+    private final Evaluation evaluation;
+    private final long[] hashes = new long[BoardGeometry.SYMMETRIES_COUNT];
+    private int[] changes;
+    private int changesCount;
+    private int[] moveStarts;
+    private int[] savedElectronCounts;
+    private long[] savedHashes;
+    private int movesCount;
+
+    /**
+     * Doubles the capacity of the stacks with moves.
+     */
+    private void growMoveStack() {
+        int[] newMoveStarts = new int[moveStarts.length * 2];
+        System.arraycopy(moveStarts, 0, newMoveStarts, 0, moveStarts.length);
+        moveStarts = newMoveStarts;
+        int[] newSavedElectronCounts = new int[savedElectronCounts.length * 2];
+        System.arraycopy(savedElectronCounts, 0, newSavedElectronCounts, 0, savedElectronCounts.length);
+        savedElectronCounts = newSavedElectronCounts;
+        long[] newSavedHashes = new long[savedHashes.length * 2];
+        System.arraycopy(savedHashes, 0, newSavedHashes, 0, savedHashes.length);
+        savedHashes = newSavedHashes;
+    }
+
+    /**
+     * Records a change of a square so that it can be undone, and updates the hashes and the evaluation.
+     * @param index The index of the square.
+     * @param oldPackedSquare The packed square before the change.
+     * @param newPackedSquare The packed square after the change.
+     */
+    private void recordChange(int index, int oldPackedSquare, int newPackedSquare) {
+        int oldKeysOffset = geometry.getSymmetricSquareKeysOffset(index, oldPackedSquare);
+        int newKeysOffset = geometry.getSymmetricSquareKeysOffset(index, newPackedSquare);
+        for (int symmetry = 0; symmetry < BoardGeometry.SYMMETRIES_COUNT; symmetry++) {
+            hashes[symmetry] ^= geometry.getSymmetricSquareKey(oldKeysOffset + symmetry)
+                    ^ geometry.getSymmetricSquareKey(newKeysOffset + symmetry);
+        }
+        if (changesCount == changes.length) {
+            int[] newChanges = new int[changes.length * 2];
+            System.arraycopy(changes, 0, newChanges, 0, changes.length);
+            changes = newChanges;
+        }
+        changes[changesCount] = index;
+        changes[changesCount + 1] = oldPackedSquare;
+        changesCount += 2;
+        if (evaluation != null) {
+            evaluation.squareChanged(index);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package atoms.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Position of the game saved as a line of text, used by tools and benchmarks.
+ *
+ * The line consists of the number of players, the ID of the player on the move
+ * and the rows of the board separated by slashes. An empty square is written
+ * as a dot, an owned square as a letter of its owner (A for the first player,
+ * B for the second one and so on) followed by the number of electrons,
+ * for example {@code 2 0 A1....../......../...}.
+ * @param state The state of the game.
+ * @param playerId The ID of the player on the move.
+ */
+public record SavedPosition(BoardState state, int playerId) {
+
+    /**
+     * Parses a position from a line of text.
+     * @param line The line, see the description of the record.
+     * @return The position.
+     * @throws IllegalArgumentException If the line is not a valid position.
+     */
+    public static SavedPosition parse(String line) {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid position: " + line);
+        }
+        int playersCount = Integer.parseInt(parts[0]);
+        int playerId = Integer.parseInt(parts[1]);
+        String[] rows = parts[2].split("/");
+        int size = rows.length;
+        if (playersCount < 2 || playersCount > BoardGeometry.MAX_PLAYERS_COUNT
+                || playerId < 0 || playerId >= playersCount) {
+            throw new IllegalArgumentException("Invalid players: " + line);
+        }
+        Board board = new Board(size);
+        int[] electronCounts = new int[playersCount];
+        for (int row = 0; row < size; row++) {
+            String text = rows[row];
+            int column = 0;
+            int i = 0;
+            while (i < text.length()) {
+                if (column == size) {
+                    throw new IllegalArgumentException("Too many squares in row " + row + ": " + line);
+                }
+                char square = text.charAt(i++);
+                if (square != EMPTY_SQUARE) {
+                    int owner = square - FIRST_PLAYER_LETTER;
+                    int start = i;
+                    while (i < text.length() && Character.isDigit(text.charAt(i))) {
+                        i++;
+                    }
+                    if (owner < 0 || owner >= playersCount || start == i) {
+                        throw new IllegalArgumentException("Invalid square in row " + row + ": " + line);
+                    }
+                    int electronsCount = Integer.parseInt(text.substring(start, i));
+                    board.setSquare(board.getIndex(row, column), owner, electronsCount);
+                    electronCounts[owner] += electronsCount;
+                }
+                column++;
+            }
+            if (column != size) {
+                throw new IllegalArgumentException("Too few squares in row " + row + ": " + line);
+            }
+        }
+        return new SavedPosition(new BoardState(board, null, electronCounts), playerId);
+    }
+
+    /**
+     * Reads positions from a text, one per line. Empty lines and lines starting with # are skipped.
+     * @param reader The reader of the text.
+     * @return The positions.
+     * @throws IOException If the text cannot be read.
+     * @throws IllegalArgumentException If a line is not a valid position.
+     */
+    public static List<SavedPosition> readAll(BufferedReader reader) throws IOException {
+        List<SavedPosition> positions = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank() && !line.startsWith(COMMENT)) {
+                positions.add(parse(line));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Formats the position as a line of text.
+     * @return The line, see the description of the record.
+     */
+    public String format() {
+        Board board = state.getBoard();
+        StringBuilder builder = new StringBuilder();
+        builder.append(state.getAllElectronCounts().length).append(' ').append(playerId).append(' ');
+        for (int row = 0; row < board.getSize(); row++) {
+            if (row > 0) {
+                builder.append('/');
+            }
+            for (int column = 0; column < board.getSize(); column++) {
+                int index = board.getIndex(row, column);
+                int owner = board.getPlayerId(index);
+                if (owner == Board.NO_PLAYER_ID) {
+                    builder.append(EMPTY_SQUARE);
+                } else {
+                    builder.append((char)(FIRST_PLAYER_LETTER + owner)).append(board.getElectronsCount(index));
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static final char EMPTY_SQUARE = '.';
+    private static final char FIRST_PLAYER_LETTER = 'A';
+    private static final String COMMENT = "#";
+}
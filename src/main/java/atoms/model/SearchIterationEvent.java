@@ -0,0 +1,35 @@
+package atoms.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of one iteration of a search, it lasts from the start to the end of the iteration.
+ *
+ * Minimax and the endgame solver record an event for every depth of iterative
+ * deepening, Monte Carlo tree search records one event for the whole search.
+ */
+@Name("atoms.SearchIteration")
+@Label("Search Iteration")
+@Category({"Exploding Atoms", "Search"})
+@Description("An iteration of a search for the best move")
+final class SearchIterationEvent extends jdk.jfr.Event {
+
+    @Label("Engine")
+    @Description("The kind of engine running the search")
+    String engine;
+
+    @Label("Depth")
+    @Description("The depth of the iteration")
+    int depth;
+
+    @Label("Nodes")
+    @Description("The number of nodes searched by the iteration")
+    long nodes;
+
+    @Label("Completed")
+    @Description("Whether the iteration was completed, or aborted by a limit of the search")
+    boolean completed;
+}
@@ -0,0 +1,66 @@
+package atoms.model;
+
+/**
+ * Limits of a search for the best move.
+ *
+ * The search deepens iteratively until one of the limits is reached.
+ * The depth is the number of moves searched from the current state,
+ * including the move of the player on the move.
+ * @param maxDepth The maximum depth of the search.
+ * @param timeLimitMillis The time limit in milliseconds, or zero for no limit.
+ * @param nodeLimit The maximum number of searched nodes, or zero for no limit.
+ */
+public record SearchLimits(int maxDepth, long timeLimitMillis, long nodeLimit) {
+    public static final int MAX_DEPTH = 64;
+
+    /**
+     * Creates limits of a search.
+     * @param maxDepth The maximum depth of the search, at least one and at most {@link #MAX_DEPTH}.
+     * @param timeLimitMillis The time limit in milliseconds, or zero for no limit.
+     * @param nodeLimit The maximum number of searched nodes, or zero for no limit.
+     * @throws IllegalArgumentException If the depth is out of range or a limit is negative.
+     */
+    public SearchLimits {
+        if (maxDepth < 1 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Unsupported search depth: " + maxDepth);
+        }
+        if (timeLimitMillis < 0 || nodeLimit < 0) {
+            throw new IllegalArgumentException(
+                    "Negative search limit: " + timeLimitMillis + " ms, " + nodeLimit + " nodes");
+        }
+    }
+
+    /**
+     * Creates limits of a search that stops at the given depth.
+     * @param maxDepth The depth of the search.
+     * @return The limits of the search.
+     */
+    public static SearchLimits ofDepth(int maxDepth) {
+        return new SearchLimits(maxDepth, 0, 0);
+    }
+
+    /**
+     * Creates limits of a search that stops after the given time.
+     * @param timeLimitMillis The time limit in milliseconds.
+     * @return The limits of the search.
+     */
+    public static SearchLimits ofTime(long timeLimitMillis) {
+        return new SearchLimits(MAX_DEPTH, timeLimitMillis, 0);
+    }
+
+    /**
+     * Checks whether the search has a time limit.
+     * @return True if the search has a time limit, otherwise false.
+     */
+    public boolean hasTimeLimit() {
+        return timeLimitMillis > 0;
+    }
+
+    /**
+     * Checks whether the search has a node limit.
+     * @return True if the search has a node limit, otherwise false.
+     */
+    public boolean hasNodeLimit() {
+        return nodeLimit > 0;
+    }
+}
@@ -0,0 +1,163 @@
+package atoms.model;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Cumulative statistics of all searches of one kind of engine in the JVM.
+ *
+ * Every engine adds the statistics of each finished search. The metrics of each
+ * kind are registered in the platform MBean server as
+ * {@code atoms:type=SearchMetrics,engine=<name>}, so they can be watched by
+ * JConsole or any other JMX client. Counters can be added from more threads.
+ */
+public final class SearchMetrics implements SearchMetricsMBean {
+    public static final String OBJECT_NAME_PREFIX = "atoms:type=SearchMetrics,engine=";
+
+    /**
+     * Gets the metrics of a kind of engine, they are created and registered when used for the first time.
+     * @param engine The name of the kind of engine.
+     * @return The metrics of the engine.
+     */
+    public static SearchMetrics forEngine(String engine) {
+        return METRICS.computeIfAbsent(engine, SearchMetrics::new);
+    }
+
+    /**
+     * Adds statistics of a finished search.
+     * @param statistics The statistics of the search.
+     */
+    public void add(SearchStatistics statistics) {
+        searches.increment();
+        nodes.add(statistics.nodes());
+        timeMillis.add(statistics.timeMillis());
+        depths.add(statistics.depth());
+        expandedNodes.add(statistics.expandedNodes());
+        cutoffs.add(statistics.cutoffs());
+        transpositionProbes.add(statistics.transpositionProbes());
+        transpositionHits.add(statistics.transpositionHits());
+        lastDepth = statistics.depth();
+    }
+
+    /**
+     * Gets the number of finished searches.
+     * @return The number of searches.
+     */
+    @Override
+    public long getSearchesCount() {
+        return searches.sum();
+    }
+
+    /**
+     * Gets the total number of searched nodes.
+     * @return The number of nodes.
+     */
+    @Override
+    public long getNodesCount() {
+        return nodes.sum();
+    }
+
+    /**
+     * Gets the total time spent by searches in milliseconds.
+     * @return The time in milliseconds.
+     */
+    @Override
+    public long getTotalTimeMillis() {
+        return timeMillis.sum();
+    }
+
+    /**
+     * Computes the number of searched nodes per second over all searches.
+     * @return The number of nodes per second.
+     */
+    @Override
+    public double getNodesPerSecond() {
+        long time = timeMillis.sum();
+        return time == 0 ? 0 : nodes.sum() * MILLIS_PER_SECOND / time;
+    }
+
+    /**
+     * Computes the average depth of the last completed iteration of searches.
+     * @return The average depth.
+     */
+    @Override
+    public double getAverageDepth() {
+        long count = searches.sum();
+        return count == 0 ? 0 : (double)depths.sum() / count;
+    }
+
+    /**
+     * Gets the depth of the last completed iteration of the last search.
+     * @return The depth of the last search.
+     */
+    @Override
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Computes the fraction of expanded nodes where a move caused a beta cutoff.
+     * @return The cutoff rate between zero and one.
+     */
+    @Override
+    public double getCutoffRate() {
+        long expanded = expandedNodes.sum();
+        return expanded == 0 ? 0 : (double)cutoffs.sum() / expanded;
+    }
+
+    /**
+     * Computes the fraction of probes of the transposition table that found an entry.
+     * @return The hit rate between zero and one.
+     */
+    @Override
+    public double getTranspositionHitRate() {
+        long probes = transpositionProbes.sum();
+        return probes == 0 ? 0 : (double)transpositionHits.sum() / probes;
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    @Override
+    public void reset() {
+        searches.reset();
+        nodes.reset();
+        timeMillis.reset();
+        depths.reset();
+        expandedNodes.reset();
+        cutoffs.reset();
+        transpositionProbes.reset();
+        transpositionHits.reset();
+        lastDepth = 0;
+    }
+
+    private static final double MILLIS_PER_SECOND = 1000;
+    private static final Map<String, SearchMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder timeMillis = new LongAdder();
+    private final LongAdder depths = new LongAdder();
+    private final LongAdder expandedNodes = new LongAdder();
+    private final LongAdder cutoffs = new LongAdder();
+    private final LongAdder transpositionProbes = new LongAdder();
+    private final LongAdder transpositionHits = new LongAdder();
+    private volatile int lastDepth;
+
+    /**
+     * Creates metrics and registers them in the platform MBean server.
+     * @param engine The name of the kind of engine.
+     */
+    private SearchMetrics(String engine) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    this, new ObjectName(OBJECT_NAME_PREFIX + engine));
+        } catch (JMException ex) {
+            // The metrics are still counted, they are only not visible through JMX
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package atoms.model;
+
+/**
+ * Management interface of cumulative statistics of searches of an engine, readable through JMX.
+ */
+public interface SearchMetricsMBean {
+
+    /**
+     * Gets the number of finished searches.
+     * @return The number of searches.
+     */
+    long getSearchesCount();
+
+    /**
+     * Gets the total number of searched nodes.
+     * @return The number of nodes.
+     */
+    long getNodesCount();
+
+    /**
+     * Gets the total time spent by searches in milliseconds.
+     * @return The time in milliseconds.
+     */
+    long getTotalTimeMillis();
+
+    /**
+     * Computes the number of searched nodes per second over all searches.
+     * @return The number of nodes per second.
+     */
+    double getNodesPerSecond();
+
+    /**
+     * Computes the average depth of the last completed iteration of searches.
+     * @return The average depth.
+     */
+    double getAverageDepth();
+
+    /**
+     * Gets the depth of the last completed iteration of the last search.
+     * @return The depth of the last search.
+     */
+    int getLastDepth();
+
+    /**
+     * Computes the fraction of expanded nodes where a move caused a beta cutoff.
+     * @return The cutoff rate between zero and one.
+     */
+    double getCutoffRate();
+
+    /**
+     * Computes the fraction of probes of the transposition table that found an entry.
+     * @return The hit rate between zero and one.
+     */
+    double getTranspositionHitRate();
+
+    /**
+     * Resets all counters to zero.
+     */
+    void reset();
+}
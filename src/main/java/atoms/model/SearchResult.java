@@ -0,0 +1,43 @@
+package atoms.model;
+
+/**
+ * Result of a search for the best move.
+ *
+ * The scale of the value depends on the engine that found the move, so values
+ * of different engines cannot be compared. Minimax and the endgame solver return
+ * the evaluation from the view of the first player in games of two players and
+ * of the player on the move in games of more players, where
+ * {@link Integer#MAX_VALUE} is a proven win of that player and
+ * {@link Integer#MIN_VALUE} a proven loss. Monte Carlo tree search returns
+ * the winning rate of the player on the move in per mille, from 0 to 1000 with
+ * draws counting as half a win. A move from the opening book has the value zero.
+ * @param target The target square of the best move.
+ * @param value The value of the best move, see the description of the record for its scale.
+ * @param statistics The statistics of the search.
+ */
+public record SearchResult(SquarePosition target, int value, SearchStatistics statistics) {
+
+    /**
+     * Gets the depth of the last completed iteration.
+     * @return The depth of the last completed iteration.
+     */
+    public int depth() {
+        return statistics.depth();
+    }
+
+    /**
+     * Gets the number of searched nodes.
+     * @return The number of searched nodes.
+     */
+    public long nodes() {
+        return statistics.nodes();
+    }
+
+    /**
+     * Gets the time spent by the search in milliseconds.
+     * @return The time spent by the search in milliseconds.
+     */
+    public long timeMillis() {
+        return statistics.timeMillis();
+    }
+}
@@ -0,0 +1,82 @@
+package atoms.model;
+
+import java.util.List;
+
+/**
+ * Statistics of a search for the best move.
+ *
+ * Counters that do not apply to a kind of search are zero, for example
+ * {@link MonteCarloTreeSearch} has no cutoffs and no transposition table.
+ * @param depth The depth of the last completed iteration.
+ * @param nodes The number of searched nodes.
+ * @param timeMillis The time spent by the search in milliseconds.
+ * @param expandedNodes The number of nodes whose moves were searched.
+ * @param cutoffs The number of expanded nodes where a move caused a beta cutoff.
+ * @param transpositionProbes The number of probes of the transposition table.
+ * @param transpositionHits The number of probes that found an entry.
+ * @param principalVariation The expected moves of both players, starting with the chosen move.
+ */
+public record SearchStatistics(
+        int depth,
+        long nodes,
+        long timeMillis,
+        long expandedNodes,
+        long cutoffs,
+        long transpositionProbes,
+        long transpositionHits,
+        List<SquarePosition> principalVariation) {
+
+    /**
+     * Creates statistics of a search that counts only nodes.
+     * @param depth The depth of the search.
+     * @param nodes The number of searched nodes.
+     * @param timeMillis The time spent by the search in milliseconds.
+     * @param principalVariation The expected moves, starting with the chosen move.
+     * @return The statistics.
+     */
+    public static SearchStatistics of(int depth, long nodes, long timeMillis, List<SquarePosition> principalVariation) {
+        return new SearchStatistics(depth, nodes, timeMillis, 0, 0, 0, 0, principalVariation);
+    }
+
+    /**
+     * Computes the number of searched nodes per second.
+     * @return The number of nodes per second, or zero if no time was measured.
+     */
+    public double getNodesPerSecond() {
+        return timeMillis == 0 ? 0 : nodes * MILLIS_PER_SECOND / timeMillis;
+    }
+
+    /**
+     * Computes the fraction of expanded nodes where a move caused a beta cutoff.
+     * @return The cutoff rate between zero and one.
+     */
+    public double getCutoffRate() {
+        return expandedNodes == 0 ? 0 : (double)cutoffs / expandedNodes;
+    }
+
+    /**
+     * Computes the fraction of probes of the transposition table that found an entry.
+     * @return The hit rate between zero and one.
+     */
+    public double getTranspositionHitRate() {
+        return transpositionProbes == 0 ? 0 : (double)transpositionHits / transpositionProbes;
+    }
+
+    /**
+     * Creates a short report of the statistics.
+     * @return The report.
+     */
+    @Override
+    public String toString() {
+        StringBuilder variation = new StringBuilder();
+        for (SquarePosition move : principalVariation) {
+            variation.append(' ').append(move.row()).append(',').append(move.column());
+        }
+        return String.format(
+                "depth %d, %d nodes, %d ms, %.0f nodes/s, cutoffs %.1f%%, TT hits %.1f%%, PV%s",
+                depth, nodes, timeMillis, getNodesPerSecond(), 100 * getCutoffRate(),
+                100 * getTranspositionHitRate(), variation);
+    }
+
+    private static final double MILLIS_PER_SECOND = 1000;
+}
@@ -0,0 +1,8 @@
+package atoms.model;
+
+/**
+ * Change of a square caused by a phase of a detailed move.
+ * @param position The position of the square.
+ * @param square The square after the phase.
+ */
+public record SquareChange(SquarePosition position, Square square) {}
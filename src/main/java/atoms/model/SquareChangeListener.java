@@ -0,0 +1,15 @@
+package atoms.model;
+
+/**
+ * Listener notified about every change of a square during a chain reaction.
+ */
+interface SquareChangeListener {
+
+    /**
+     * Called after a square was changed.
+     * @param index The index of the square.
+     * @param oldPackedSquare The packed square before the change.
+     * @param newPackedSquare The packed square after the change.
+     */
+    void squareChanged(int index, int oldPackedSquare, int newPackedSquare);
+}
@@ -0,0 +1,217 @@
+package atoms.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results that can be shared by search threads.
+ *
+ * Each entry consists of two longs, the data and the hash XOR-ed with the data.
+ * Both are read and written atomically but without locks, so an entry torn
+ * by concurrent writes of two threads does not pass the check of the hash
+ * and is treated as missing. Entries are grouped into buckets of two,
+ * and the replacement policy decides which entry of a bucket is overwritten.
+ */
+public final class TranspositionTable {
+    public static final int BOUND_EXACT = 0;
+    public static final int BOUND_LOWER = 1;
+    public static final int BOUND_UPPER = 2;
+    public static final int NO_MOVE = -1;
+
+    /**
+     * Policy that decides which entries are overwritten by new results.
+     */
+    public enum ReplacementPolicy {
+        /**
+         * New results always replace the first entry of the bucket.
+         */
+        ALWAYS_REPLACE,
+        /**
+         * New results replace the first entry of the bucket if they were searched
+         * at least as deep, or if the entry is left from an older search.
+         */
+        DEPTH_PREFERRED,
+        /**
+         * The first entry of the bucket is depth-preferred and the second one is
+         * replaced by results that do not fit into the first entry.
+         */
+        TWO_TIER
+    }
+
+    /**
+     * Creates a transposition table.
+     * @param sizeInBytes The memory budget, the table uses the largest power of two entries that fits.
+     * @param replacementPolicy The replacement policy.
+     */
+    public TranspositionTable(long sizeInBytes, ReplacementPolicy replacementPolicy) {
+        long bucketsCount = Long.highestOneBit(Math.max(1, sizeInBytes / BUCKET_SIZE_IN_BYTES));
+        if (bucketsCount > MAX_BUCKETS_COUNT) {
+            bucketsCount = MAX_BUCKETS_COUNT;
+        }
+        table = new long[(int)bucketsCount * ENTRIES_PER_BUCKET * LONGS_PER_ENTRY];
+        bucketMask = (int)bucketsCount - 1;
+        this.replacementPolicy = replacementPolicy;
+    }
+
+    /**
+     * Starts a new search, entries from older searches are replaced first.
+     */
+    public void newSearch() {
+        generation = (generation + 1) % GENERATIONS_COUNT;
+    }
+
+    /**
+     * Removes all entries from the table. It must not be called during a search.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    /**
+     * Gets the memory used by entries of the table.
+     * @return The size of the table in bytes.
+     */
+    public long getSizeInBytes() {
+        return (long)table.length * Long.BYTES;
+    }
+
+    /**
+     * Finds the data of an entry with the given hash.
+     * @param hash The hash of the position.
+     * @return The packed data of the entry, or zero if it is not present.
+     * Use the static methods of the table to read the data.
+     */
+    public long probe(long hash) {
+        int bucket = getBucketOffset(hash);
+        for (int i = 0; i < ENTRIES_PER_BUCKET; i++) {
+            int offset = bucket + i * LONGS_PER_ENTRY;
+            long data = (long)TABLE.getOpaque(table, offset + 1);
+            long check = (long)TABLE.getOpaque(table, offset);
+            if (data != 0 && (check ^ data) == hash) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result.
+     * @param hash The hash of the position.
+     * @param depth The depth of the search, at most 255.
+     * @param bound The type of the value, one of the BOUND constants.
+     * @param value The value of the position.
+     * @param move The index of the best move, or NO_MOVE.
+     */
+    public void store(long hash, int depth, int bound, int value, int move) {
+        long data = packData(depth, bound, value, move, generation);
+        int bucket = getBucketOffset(hash);
+        int offset = bucket;
+        if (replacementPolicy != ReplacementPolicy.ALWAYS_REPLACE) {
+            long oldData = (long)TABLE.getOpaque(table, bucket + 1);
+            long oldCheck = (long)TABLE.getOpaque(table, bucket);
+            boolean samePosition = (oldCheck ^ oldData) == hash;
+            boolean replaceable = oldData == 0
+                    || samePosition
+                    || getGeneration(oldData) != generation
+                    || getDepth(oldData) <= depth;
+            if (!replaceable) {
+                if (replacementPolicy == ReplacementPolicy.DEPTH_PREFERRED) {
+                    return;
+                }
+                offset = bucket + LONGS_PER_ENTRY;
+            }
+        }
+        TABLE.setOpaque(table, offset + 1, data);
+        TABLE.setOpaque(table, offset, hash ^ data);
+    }
+
+    /**
+     * Gets the depth from the data of an entry.
+     * @param data The packed data of an entry.
+     * @return The depth of the search.
+     */
+    public static int getDepth(long data) {
+        return (int)(data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Gets the type of the value from the data of an entry.
+     * @param data The packed data of an entry.
+     * @return The type of the value, one of the BOUND constants.
+     */
+    public static int getBound(long data) {
+        return (int)(data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /**
+     * Gets the value from the data of an entry.
+     * @param data The packed data of an entry.
+     * @return The value of the position.
+     */
+    public static int getValue(long data) {
+        return (int)data;
+    }
+
+    /**
+     * Gets the best move from the data of an entry.
+     * @param data The packed data of an entry.
+     * @return The index of the best move, or NO_MOVE.
+     */
+    public static int getMove(long data) {
+        return ((int)(data >>> MOVE_SHIFT) & 0xFFFF) - 1;
+    }
+
+    private static final VarHandle TABLE = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int ENTRIES_PER_BUCKET = 2;
+    private static final int BUCKET_SIZE_IN_BYTES = LONGS_PER_ENTRY * ENTRIES_PER_BUCKET * Long.BYTES;
+    private static final long MAX_BUCKETS_COUNT = 1L << 26;
+    private static final int MOVE_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+    private static final int GENERATION_SHIFT = 58;
+    // Generations are stored in 6 bits increased by one
+    private static final int GENERATIONS_COUNT = 63;
+
+    private final long[] table;
+    private final int bucketMask;
+    private final ReplacementPolicy replacementPolicy;
+    private volatile int generation;
+
+    /**
+     * Gets the offset of the bucket for a hash in the table.
+     * @param hash The hash of the position.
+     * @return The offset of the first long of the bucket.
+     */
+    private int getBucketOffset(long hash) {
+        return ((int)(hash >>> 32) & bucketMask) * ENTRIES_PER_BUCKET * LONGS_PER_ENTRY;
+    }
+
+    /**
+     * Packs the data of an entry into a long.
+     * The generation is never zero, so a packed entry is never zero either.
+     * @param depth The depth of the search.
+     * @param bound The type of the value.
+     * @param value The value of the position.
+     * @param move The index of the best move, or NO_MOVE.
+     * @param generation The generation of the search.
+     * @return The packed data.
+     */
+    private static long packData(int depth, int bound, int value, int move, int generation) {
+        return (value & 0xFFFFFFFFL)
+                | (long)((move + 1) & 0xFFFF) << MOVE_SHIFT
+                | (long)(depth & 0xFF) << DEPTH_SHIFT
+                | (long)bound << BOUND_SHIFT
+                | (long)(generation + 1) << GENERATION_SHIFT;
+    }
+
+    /**
+     * Gets the generation from the data of an entry.
+     * @param data The packed data of an entry.
+     * @return The generation of the search that stored the entry.
+     */
+    private static int getGeneration(long data) {
+        return (int)(data >>> GENERATION_SHIFT) - 1;
+    }
+}
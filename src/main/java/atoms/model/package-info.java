@@ -1,18 +1,32 @@
 /**
  * Contains the main logic of the game and related data structures.
  * 
- * A board is a two-dimensional array of squares, where each square can be
- * owned by a player and contain electrons.
+ * A board is a grid of squares, where each square can be owned by a player
+ * and contain electrons. The squares are packed into a flat array of integers
+ * so that the search does not allocate objects for individual squares.
  * 
  * A state of the game is represented by BoardState. These states also represent
  * possible moves of a player.
  * In order for the View to have more possibilities when displaying moves,
  * a DetailedMove is returned instead of a BoardState. It separates the move
- * into phases of explosions that happen at the same time.
+ * into phases of explosions that happen at the same time. Phases hold only
+ * the squares they changed, and a DetailedMoveCursor rebuilds the board after
+ * any phase from the board before the move.
+ * 
+ * Moves on the standard 8x8 board for two players can also be generated by
+ * BitboardMoveGenerator, which stores the board in 64-bit masks and resolves
+ * whole waves of explosions with bitwise operations.
  * 
  * The algorithm used to choose a move for an A. I. player is minimax with
- * alpha-beta pruning. The value of a move is the difference between the number
- * of electrons of both players. If there are more moves  with the same value,
- * one is chosen randomly.
+ * alpha-beta pruning. The value of a move is the difference between the scores
+ * of both players, which count electrons, squares about to explode, squares
+ * threatened by such squares of the opponent, and corners and edges. The scores
+ * are updated incrementally with every changed square. If there are more moves
+ * with the same value, one is chosen randomly. The search deepens iteratively
+ * until it reaches the depth, time or node limit set for the player.
+ * 
+ * Alternatively, a player can use Monte Carlo tree search, which plays random
+ * games from the current state in several threads and chooses the move that
+ * was explored most often.
  */
 package atoms.model;
\ No newline at end of file
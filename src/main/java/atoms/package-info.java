@@ -2,6 +2,7 @@
  * Contains the Exploding Atoms game.
  *
  * The code is divided into two separate packages, one for UI components and
- * another for the game model.
+ * another for the game model. Command line tools that prepare data for the game
+ * offline are in a third package.
  */
 package atoms;
\ No newline at end of file
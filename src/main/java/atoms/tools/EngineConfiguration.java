@@ -0,0 +1,131 @@
+package atoms.tools;
+
+import atoms.model.AIEngine;
+import atoms.model.EngineType;
+import atoms.model.EvaluationWeights;
+import atoms.model.MinimaxSearch;
+import atoms.model.MoveChooser;
+import atoms.model.OpeningBook;
+import atoms.model.SearchLimits;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Configuration of an engine playing in a tournament.
+ *
+ * Configurations are written as the type of the engine followed by options,
+ * for example {@code minimax:depth=3} or {@code mcts:time=100,nodes=20000}.
+ * Options are {@code depth}, {@code time} (milliseconds) and {@code nodes} for
+ * the limits of the search, and for minimax also {@code weights} ({@code default}
+ * or {@code material}) and {@code ordering} ({@code on} or {@code off}).
+ * Moves are chosen the same way as in the game, {@code book} is the path to
+ * an opening book and {@code endgame} is the threshold of the endgame solver
+ * in squares, both are disabled by default so that the engine alone is measured.
+ * @param name The name of the engine in reports.
+ * @param type The type of the engine.
+ * @param limits The limits of the search.
+ * @param weights The weights of the evaluation of minimax.
+ * @param moveOrdering An indicator whether minimax orders moves.
+ * @param openingBook The opening book, or null if no book is used.
+ * @param endgameThreshold The threshold of the endgame solver, zero if the solver is not used.
+ */
+public record EngineConfiguration(String name, EngineType type, SearchLimits limits, EvaluationWeights weights,
+        boolean moveOrdering, OpeningBook openingBook, int endgameThreshold) {
+
+    /**
+     * Parses a configuration.
+     * @param text The configuration, see the description of the class.
+     * @return The configuration.
+     * @throws IllegalArgumentException If the configuration is not valid.
+     */
+    public static EngineConfiguration parse(String text) {
+        String[] parts = text.split(":", 2);
+        EngineType type = switch (parts[0]) {
+            case "minimax" -> EngineType.MINIMAX;
+            case "mcts" -> EngineType.MONTE_CARLO;
+            default -> throw new IllegalArgumentException("Unknown engine: " + parts[0]);
+        };
+        int depth = SearchLimits.MAX_DEPTH;
+        long timeMillis = 0;
+        long nodes = 0;
+        EvaluationWeights weights = EvaluationWeights.DEFAULT;
+        boolean moveOrdering = true;
+        OpeningBook openingBook = null;
+        int endgameThreshold = 0;
+        if (parts.length > 1 && !parts[1].isEmpty()) {
+            for (String option : parts[1].split(",")) {
+                String[] keyValue = option.split("=", 2);
+                if (keyValue.length != 2) {
+                    throw new IllegalArgumentException("Invalid option: " + option);
+                }
+                String value = keyValue[1];
+                switch (keyValue[0]) {
+                    case "depth" -> depth = Integer.parseInt(value);
+                    case "time" -> timeMillis = Long.parseLong(value);
+                    case "nodes" -> nodes = Long.parseLong(value);
+                    case "weights" -> weights = switch (value) {
+                        case "default" -> EvaluationWeights.DEFAULT;
+                        case "material" -> EvaluationWeights.MATERIAL;
+                        default -> throw new IllegalArgumentException("Unknown weights: " + value);
+                    };
+                    case "ordering" -> moveOrdering = switch (value) {
+                        case "on" -> true;
+                        case "off" -> false;
+                        default -> throw new IllegalArgumentException("Unknown ordering: " + value);
+                    };
+                    case "book" -> openingBook = openOpeningBook(value);
+                    case "endgame" -> {
+                        endgameThreshold = Integer.parseInt(value);
+                        if (endgameThreshold < 0) {
+                            throw new IllegalArgumentException("Negative endgame threshold: " + value);
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option: " + keyValue[0]);
+                }
+            }
+        }
+        if (depth == SearchLimits.MAX_DEPTH && timeMillis == 0 && nodes == 0) {
+            throw new IllegalArgumentException("The engine has no limit: " + text);
+        }
+        return new EngineConfiguration(text, type, new SearchLimits(depth, timeMillis, nodes), weights, moveOrdering,
+                openingBook, endgameThreshold);
+    }
+
+    /**
+     * Creates a single-threaded engine with this configuration.
+     * @param seed The seed of the random generator of the engine.
+     * @return The engine.
+     */
+    public AIEngine createEngine(long seed) {
+        AIEngine engine = type.createEngine(new Random(seed), 1);
+        if (engine instanceof MinimaxSearch search) {
+            search.setEvaluationWeights(weights);
+            search.setMoveOrderingEnabled(moveOrdering);
+        }
+        return engine;
+    }
+
+    /**
+     * Creates a chooser of moves with the opening book and the endgame threshold of this configuration.
+     * @return The chooser of moves.
+     */
+    public MoveChooser createMoveChooser() {
+        return new MoveChooser(openingBook, endgameThreshold);
+    }
+
+    /**
+     * Opens the opening book of a configuration.
+     * @param path The path to the book.
+     * @return The book.
+     * @throws IllegalArgumentException If the book cannot be read.
+     */
+    private static OpeningBook openOpeningBook(String path) {
+        try {
+            return OpeningBook.open(Path.of(path));
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Cannot load the opening book: " + ex.getMessage(), ex);
+        }
+    }
+}
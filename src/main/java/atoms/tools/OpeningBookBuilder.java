@@ -0,0 +1,146 @@
+package atoms.tools;
+
+import atoms.model.Board;
+import atoms.model.BoardGeometry;
+import atoms.model.BoardState;
+import atoms.model.GameModel;
+import atoms.model.MinimaxSearch;
+import atoms.model.MoveGenerator;
+import atoms.model.OpeningBook;
+import atoms.model.Position;
+import atoms.model.SearchLimits;
+import atoms.model.SearchResult;
+import atoms.model.TranspositionTable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds an opening book by searching all positions of the first plies of the game.
+ *
+ * Positions are generated ply by ply from the initial state, and symmetric
+ * positions are generated only once. Every position is searched to a fixed depth
+ * in a pool of threads. Each position gets a new search with an empty transposition
+ * table and a random generator seeded by the key of the position, so the book
+ * does not depend on the order in which threads search positions.
+ *
+ * Usage: {@code OpeningBookBuilder <output file> [plies] [depth] [threads]}
+ */
+public final class OpeningBookBuilder {
+    public static final int DEFAULT_PLIES = 3;
+    public static final int DEFAULT_DEPTH = 5;
+
+    /**
+     * The entrypoint of the builder.
+     * @param args The path to the output file, optionally the number of plies,
+     * the depth of the search and the number of threads.
+     * @throws IOException If the book cannot be written.
+     * @throws InterruptedException If the builder is interrupted.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: OpeningBookBuilder <output file> [plies] [depth] [threads]");
+            System.exit(1);
+        }
+        Path path = Path.of(args[0]);
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PLIES;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DEPTH;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : GameModel.DEFAULT_SEARCH_THREADS;
+        long startTime = System.currentTimeMillis();
+        Map<Long, Integer> entries = build(plies, depth, threads);
+        OpeningBook.write(path, GameModel.DEFAULT_BOARD_SIZE, GameModel.DEFAULT_PLAYERS_COUNT, entries);
+        long timeMillis = System.currentTimeMillis() - startTime;
+        System.out.println("Wrote " + entries.size() + " positions to " + path + " in " + timeMillis + " ms");
+    }
+
+    /**
+     * Searches all positions of the first plies of the game.
+     * @param plies The number of plies, positions after the last ply are not searched.
+     * @param depth The depth of the search.
+     * @param threads The number of threads.
+     * @return The best moves in the canonical form by keys of positions.
+     * @throws InterruptedException If the builder is interrupted.
+     */
+    public static Map<Long, Integer> build(int plies, int depth, int threads) throws InterruptedException {
+        Map<Long, Integer> entries = new ConcurrentHashMap<>();
+        ThreadLocal<TranspositionTable> transpositionTables = ThreadLocal.withInitial(() -> new TranspositionTable(
+                MinimaxSearch.DEFAULT_TRANSPOSITION_TABLE_SIZE, TranspositionTable.ReplacementPolicy.TWO_TIER));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Map<Long, BoardState> positions = new LinkedHashMap<>();
+            BoardState initialState = new BoardState(GameModel.DEFAULT_BOARD_SIZE, GameModel.DEFAULT_PLAYERS_COUNT);
+            positions.put(OpeningBook.getKey(new Position(initialState), 0), initialState);
+            for (int ply = 0; ply < plies; ply++) {
+                int playerId = ply % GameModel.DEFAULT_PLAYERS_COUNT;
+                List<Future<?>> results = new ArrayList<>();
+                for (Map.Entry<Long, BoardState> position : positions.entrySet()) {
+                    long key = position.getKey();
+                    BoardState state = position.getValue();
+                    results.add(executor.submit(() -> {
+                        TranspositionTable transpositionTable = transpositionTables.get();
+                        transpositionTable.clear();
+                        MinimaxSearch search = new MinimaxSearch(new Random(RANDOM_SEED ^ key), transpositionTable, 1);
+                        SearchResult result = search.search(state, playerId, SearchLimits.ofDepth(depth));
+                        entries.put(key, getCanonicalMove(state, result));
+                    }));
+                }
+                for (Future<?> result : results) {
+                    result.get();
+                }
+                System.out.println("Ply " + (ply + 1) + ": searched " + positions.size() + " positions");
+                if (ply + 1 < plies) {
+                    positions = generateNextPositions(positions.values(), playerId);
+                }
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Search of a position failed", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+        return entries;
+    }
+
+    private static final int RANDOM_SEED = 0;
+
+    /**
+     * Generates all positions after a move of a player, symmetric and terminal positions are skipped.
+     * @param states The states before the move.
+     * @param playerId The ID of the player on the move.
+     * @return The states after the move by their keys.
+     */
+    private static Map<Long, BoardState> generateNextPositions(Iterable<BoardState> states, int playerId) {
+        int nextPlayerId = (playerId + 1) % GameModel.DEFAULT_PLAYERS_COUNT;
+        Map<Long, BoardState> nextPositions = new LinkedHashMap<>();
+        for (BoardState state : states) {
+            for (BoardState nextState : MoveGenerator.generateAllMoves(state, playerId)) {
+                if (!nextState.isTerminal()) {
+                    nextPositions.putIfAbsent(OpeningBook.getKey(new Position(nextState), nextPlayerId), nextState);
+                }
+            }
+        }
+        return nextPositions;
+    }
+
+    /**
+     * Transforms the best move found by a search into the canonical form of the position.
+     * @param state The searched state.
+     * @param result The result of the search.
+     * @return The index of the target square in the canonical form.
+     */
+    private static int getCanonicalMove(BoardState state, SearchResult result) {
+        Board board = state.getBoard();
+        BoardGeometry geometry = board.getGeometry();
+        int symmetry = new Position(state).getCanonicalSymmetry();
+        return geometry.getSymmetricSquare(symmetry, board.getIndex(result.target()));
+    }
+}
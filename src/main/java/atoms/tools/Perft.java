@@ -0,0 +1,385 @@
+package atoms.tools;
+
+import atoms.model.Bitboard;
+import atoms.model.BitboardMoveGenerator;
+import atoms.model.BoardState;
+import atoms.model.GameModel;
+import atoms.model.MoveGenerator;
+import atoms.model.SavedPosition;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts positions reachable by a given number of moves, to check the move generator.
+ *
+ * Perft walks the tree of all moves generated by {@link MoveGenerator#generateAllMoves}
+ * and counts its leaves, the positions after exactly the given number of moves.
+ * A game that ends earlier has no leaves, but it is counted among terminal positions.
+ * Subtrees of moves at the root are counted in parallel by a fork/join pool.
+ * With deduplication, a position reached again at the same depth is not walked
+ * again, so the count is the number of distinct positions, up to collisions
+ * of 64-bit hashes.
+ *
+ * With the bitboard option, moves are generated by {@link BitboardMoveGenerator}
+ * instead, which supports only 8x8 boards with two players. Both generators
+ * must produce the same counts, so the golden file checks one against the other.
+ *
+ * Expected counts of the move generator are stored in a golden file, one position
+ * per line followed by counts at depths, for example {@code 2 0 <rows> ;D1 64 ;D2 4032}.
+ *
+ * Usage: {@code Perft [--depth N] [--threads N] [--dedup | --bitboard] [position]} counts
+ * positions at depths from one to N, and {@code Perft --verify [--threads N] [--bitboard] [file]}
+ * checks the golden file, by default the one shipped with the game.
+ */
+public final class Perft {
+    public static final int DEFAULT_DEPTH = 4;
+    public static final String GOLDEN_COUNTS_RESOURCE = "/atoms/tools/perft.txt";
+
+    /**
+     * Result of a count.
+     * @param nodes The number of positions after exactly the given number of moves.
+     * @param terminalNodes The number of positions where the game ended within the given number of moves.
+     * @param timeNanos The time spent by the count in nanoseconds.
+     */
+    public record Result(long nodes, long terminalNodes, long timeNanos) {
+
+        /**
+         * Computes the number of counted positions per second.
+         * @return The number of positions per second.
+         */
+        public double getNodesPerSecond() {
+            return timeNanos == 0 ? 0 : nodes * NANOS_PER_SECOND / timeNanos;
+        }
+    }
+
+    /**
+     * Expected counts of a position.
+     * @param position The position.
+     * @param counts The expected numbers of nodes at depths from one.
+     */
+    public record GoldenCounts(SavedPosition position, long[] counts) {
+
+        /**
+         * Parses expected counts from a line of a golden file.
+         * @param line The line, the position followed by counts such as {@code ;D1 64}.
+         * @return The expected counts.
+         * @throws IllegalArgumentException If the line is not valid.
+         */
+        public static GoldenCounts parse(String line) {
+            String[] parts = line.split(";");
+            List<Long> counts = new ArrayList<>();
+            for (int i = 1; i < parts.length; i++) {
+                String[] depthCount = parts[i].trim().split("\\s+");
+                if (depthCount.length != 2 || !depthCount[0].equals("D" + i)) {
+                    throw new IllegalArgumentException("Invalid count: " + parts[i]);
+                }
+                counts.add(Long.parseLong(depthCount[1]));
+            }
+            return new GoldenCounts(SavedPosition.parse(parts[0]),
+                    counts.stream().mapToLong(Long::longValue).toArray());
+        }
+    }
+
+    /**
+     * The entrypoint of perft.
+     * @param args The options and the position.
+     * @throws IOException If the golden file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        int depth = DEFAULT_DEPTH;
+        int threads = GameModel.DEFAULT_SEARCH_THREADS;
+        boolean deduplicate = false;
+        boolean bitboard = false;
+        boolean verify = false;
+        String argument = null;
+        SavedPosition position;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--depth" -> depth = Integer.parseInt(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--dedup" -> deduplicate = true;
+                    case "--bitboard" -> bitboard = true;
+                    case "--verify" -> verify = true;
+                    default -> argument = args[i];
+                }
+            }
+            position = verify || argument == null
+                    ? new SavedPosition(new BoardState(GameModel.DEFAULT_BOARD_SIZE, GameModel.DEFAULT_PLAYERS_COUNT), 0)
+                    : SavedPosition.parse(argument);
+            if (bitboard && deduplicate) {
+                throw new IllegalArgumentException("Deduplication is not supported with bitboards");
+            }
+            if (bitboard && !Bitboard.isSupported(position.state())) {
+                throw new IllegalArgumentException("Bitboards support only 8x8 boards with two players");
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Usage: Perft [--depth N] [--threads N] [--dedup | --bitboard] [position]");
+            System.err.println("       Perft --verify [--threads N] [--bitboard] [file]");
+            System.exit(1);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            if (verify) {
+                List<GoldenCounts> goldenCounts;
+                if (argument == null) {
+                    goldenCounts = readGoldenCounts();
+                } else {
+                    try (BufferedReader reader = Files.newBufferedReader(Path.of(argument))) {
+                        goldenCounts = readGoldenCounts(reader);
+                    }
+                }
+                boolean passed = new Perft(pool, false, bitboard).verify(goldenCounts);
+                System.out.println(passed ? "All counts match" : "Some counts do not match");
+                System.exit(passed ? 0 : 1);
+            } else {
+                Perft perft = new Perft(pool, deduplicate, bitboard);
+                for (int currentDepth = 1; currentDepth <= depth; currentDepth++) {
+                    Result result = perft.count(position.state(), position.playerId(), currentDepth);
+                    System.out.printf("D%d %d nodes, %d terminal, %.3f s, %.0f nodes/s%n", currentDepth,
+                            result.nodes(), result.terminalNodes(), result.timeNanos() / NANOS_PER_SECOND,
+                            result.getNodesPerSecond());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reads the golden file shipped with the game.
+     * @return The expected counts.
+     * @throws IOException If the file cannot be read.
+     */
+    public static List<GoldenCounts> readGoldenCounts() throws IOException {
+        try (InputStream stream = Perft.class.getResourceAsStream(GOLDEN_COUNTS_RESOURCE)) {
+            if (stream == null) {
+                throw new IOException("Missing resource " + GOLDEN_COUNTS_RESOURCE);
+            }
+            return readGoldenCounts(new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Reads a golden file. Empty lines and lines starting with # are skipped.
+     * @param reader The reader of the file.
+     * @return The expected counts.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If a line is not valid.
+     */
+    public static List<GoldenCounts> readGoldenCounts(BufferedReader reader) throws IOException {
+        List<GoldenCounts> goldenCounts = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                goldenCounts.add(GoldenCounts.parse(line));
+            }
+        }
+        return goldenCounts;
+    }
+
+    /**
+     * Creates perft.
+     * @param pool The pool counting subtrees of moves at the root.
+     * @param deduplicate An indicator whether positions reached again at the same depth are counted only once.
+     */
+    public Perft(ForkJoinPool pool, boolean deduplicate) {
+        this(pool, deduplicate, false);
+    }
+
+    /**
+     * Creates perft.
+     * @param pool The pool counting subtrees of moves at the root.
+     * @param deduplicate An indicator whether positions reached again at the same depth are counted only once.
+     * @param bitboard An indicator whether moves are generated by the bitboard move generator.
+     * @throws IllegalArgumentException If both deduplication and bitboards are requested.
+     */
+    public Perft(ForkJoinPool pool, boolean deduplicate, boolean bitboard) {
+        if (deduplicate && bitboard) {
+            throw new IllegalArgumentException("Deduplication is not supported with bitboards");
+        }
+        this.pool = pool;
+        this.deduplicate = deduplicate;
+        this.bitboard = bitboard;
+    }
+
+    /**
+     * Counts positions reachable by the given number of moves.
+     * @param state The initial state.
+     * @param playerId The ID of the player on the move.
+     * @param depth The number of moves.
+     * @return The result of the count.
+     * @throws IllegalArgumentException If bitboards are used and the state is not supported by them.
+     */
+    public Result count(BoardState state, int playerId, int depth) {
+        long startTime = System.nanoTime();
+        List<Set<Long>> visited = new ArrayList<>();
+        if (deduplicate) {
+            for (int ply = 0; ply <= depth; ply++) {
+                visited.add(ConcurrentHashMap.newKeySet());
+            }
+        }
+        long[] counts = pool.invoke(new CountTask(state, playerId, depth, 0, visited));
+        return new Result(counts[NODES], counts[TERMINAL_NODES], System.nanoTime() - startTime);
+    }
+
+    /**
+     * Counts all positions of golden counts and prints the results.
+     * @param goldenCounts The expected counts.
+     * @return An indicator whether all counts match.
+     */
+    public boolean verify(List<GoldenCounts> goldenCounts) {
+        boolean passed = true;
+        for (GoldenCounts expected : goldenCounts) {
+            SavedPosition position = expected.position();
+            for (int depth = 1; depth <= expected.counts().length; depth++) {
+                Result result = count(position.state(), position.playerId(), depth);
+                long expectedNodes = expected.counts()[depth - 1];
+                boolean matches = result.nodes() == expectedNodes;
+                passed &= matches;
+                System.out.printf("%s D%d %d %s, %.0f nodes/s%n", position.format(), depth, result.nodes(),
+                        matches ? "OK" : "expected " + expectedNodes, result.getNodesPerSecond());
+            }
+        }
+        return passed;
+    }
+
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final int NODES = 0;
+    private static final int TERMINAL_NODES = 1;
+
+    private final ForkJoinPool pool;
+    private final boolean deduplicate;
+    private final boolean bitboard;
+
+    /**
+     * Task counting positions in the subtree of a position, in parallel at the root.
+     */
+    private final class CountTask extends RecursiveTask<long[]> {
+
+        /**
+         * Creates a task.
+         * @param state The state at the root of the subtree.
+         * @param playerId The ID of the player on the move.
+         * @param depth The number of remaining moves.
+         * @param ply The number of moves from the initial state.
+         * @param visited The hashes of visited positions at every ply, empty without deduplication.
+         */
+        CountTask(BoardState state, int playerId, int depth, int ply, List<Set<Long>> visited) {
+            this.state = state;
+            this.playerId = playerId;
+            this.depth = depth;
+            this.ply = ply;
+            this.visited = visited;
+        }
+
+        /**
+         * Counts positions in the subtree.
+         * @return The number of nodes and terminal nodes.
+         */
+        @Override
+        protected long[] compute() {
+            long[] counts = new long[2];
+            if (ply > 0 || depth == 0) {
+                if (bitboard) {
+                    countBitboards(Bitboard.fromBoardState(state), playerId, depth, ply, counts);
+                } else {
+                    countSequentially(state, playerId, depth, ply, counts);
+                }
+                return counts;
+            }
+            if (deduplicate) {
+                visited.get(ply).add(state.getBoard().computeHash());
+            }
+            List<BoardState> nextStates = bitboard
+                    ? BitboardMoveGenerator.generateAllMoves(state, playerId)
+                    : MoveGenerator.generateAllMoves(state, playerId);
+            List<CountTask> tasks = new ArrayList<>();
+            for (BoardState nextState : nextStates) {
+                tasks.add(new CountTask(nextState, nextState.getNextPlayerId(playerId), depth - 1, ply + 1, visited));
+            }
+            for (CountTask task : invokeAll(tasks)) {
+                long[] taskCounts = task.join();
+                counts[NODES] += taskCounts[NODES];
+                counts[TERMINAL_NODES] += taskCounts[TERMINAL_NODES];
+            }
+            return counts;
+        }
+
+        private static final long serialVersionUID = 1L;
+
+        private final BoardState state;
+        private final int playerId;
+        private final int depth;
+        private final int ply;
+        private final List<Set<Long>> visited;
+
+        /**
+         * Counts positions in a subtree in the current thread.
+         * @param state The state at the root of the subtree.
+         * @param playerId The ID of the player on the move.
+         * @param depth The number of remaining moves.
+         * @param ply The number of moves from the initial state.
+         * @param counts The number of nodes and terminal nodes, updated in place.
+         */
+        private void countSequentially(BoardState state, int playerId, int depth, int ply, long[] counts) {
+            if (deduplicate && !visited.get(ply).add(state.getBoard().computeHash())) {
+                return;
+            }
+            if (ply > 0 && state.isTerminal()) {
+                counts[TERMINAL_NODES]++;
+                if (depth == 0) {
+                    counts[NODES]++;
+                }
+                return;
+            }
+            if (depth == 0) {
+                counts[NODES]++;
+                return;
+            }
+            for (BoardState nextState : MoveGenerator.generateAllMoves(state, playerId)) {
+                countSequentially(nextState, nextState.getNextPlayerId(playerId), depth - 1, ply + 1, counts);
+            }
+        }
+
+        /**
+         * Counts positions in a subtree in the current thread with the bitboard move generator.
+         * Bitboards have two players, so the players simply alternate.
+         * @param state The state at the root of the subtree.
+         * @param playerId The ID of the player on the move.
+         * @param depth The number of remaining moves.
+         * @param ply The number of moves from the initial state.
+         * @param counts The number of nodes and terminal nodes, updated in place.
+         */
+        private void countBitboards(Bitboard state, int playerId, int depth, int ply, long[] counts) {
+            if (ply > 0 && state.isTerminal()) {
+                counts[TERMINAL_NODES]++;
+                if (depth == 0) {
+                    counts[NODES]++;
+                }
+                return;
+            }
+            if (depth == 0) {
+                counts[NODES]++;
+                return;
+            }
+            for (Bitboard nextState : BitboardMoveGenerator.generateAllMoves(state, playerId)) {
+                countBitboards(nextState, 1 - playerId, depth - 1, ply + 1, counts);
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package atoms.tools;
+
+import atoms.model.AIEngine;
+import atoms.model.BoardState;
+import atoms.model.GameModel;
+import atoms.model.MoveChooser;
+import atoms.model.MoveGenerator;
+import atoms.model.SearchResult;
+import atoms.model.SquarePosition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a tournament of two engines playing against each other without the user interface.
+ *
+ * Games are played in a pool of threads, each thread has its own single-threaded
+ * instance of both engines. Moves are chosen by a {@link MoveChooser} as in the game,
+ * so the opening book and the endgame solver play if an engine is configured to use
+ * them. Every game starts with a few random moves, and every opening is played twice
+ * with swapped colours, so that neither engine benefits from a lucky opening.
+ * The tournament stops early when the sequential probability ratio test decides,
+ * if the test is enabled.
+ *
+ * Usage: {@code Tournament [options] <engine> <engine>}, where engines are described
+ * in {@link EngineConfiguration} and the options are {@code --games N},
+ * {@code --threads N}, {@code --opening-plies N}, {@code --seed N},
+ * {@code --board-size N} and {@code --sprt elo0,elo1}.
+ */
+public final class Tournament {
+    public static final int DEFAULT_GAMES_COUNT = 100;
+    public static final int DEFAULT_OPENING_PLIES = 4;
+    public static final double DEFAULT_SPRT_ALPHA = 0.05;
+    public static final double DEFAULT_SPRT_BETA = 0.05;
+
+    /**
+     * The entrypoint of the tournament.
+     * @param args The options and configurations of both engines.
+     * @throws InterruptedException If the tournament is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int gamesCount = DEFAULT_GAMES_COUNT;
+        int threads = GameModel.DEFAULT_SEARCH_THREADS;
+        int openingPlies = DEFAULT_OPENING_PLIES;
+        int boardSize = GameModel.DEFAULT_BOARD_SIZE;
+        long seed = System.nanoTime();
+        double elo0 = 0;
+        double elo1 = 0;
+        boolean sprt = false;
+        List<EngineConfiguration> engines = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--games" -> gamesCount = Integer.parseInt(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--opening-plies" -> openingPlies = Integer.parseInt(args[++i]);
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    case "--board-size" -> boardSize = Integer.parseInt(args[++i]);
+                    case "--sprt" -> {
+                        String[] bounds = args[++i].split(",");
+                        elo0 = Double.parseDouble(bounds[0]);
+                        elo1 = Double.parseDouble(bounds[1]);
+                        sprt = true;
+                    }
+                    default -> engines.add(EngineConfiguration.parse(args[i]));
+                }
+            }
+            if (engines.size() != 2) {
+                throw new IllegalArgumentException("Two engines are required");
+            }
+            if (boardSize < GameModel.MIN_BOARD_SIZE || boardSize > GameModel.MAX_BOARD_SIZE) {
+                throw new IllegalArgumentException("Unsupported board size: " + boardSize);
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Usage: Tournament [--games N] [--threads N] [--opening-plies N] [--seed N]"
+                    + " [--board-size N] [--sprt elo0,elo1] <engine> <engine>");
+            System.exit(1);
+            return;
+        }
+        Tournament tournament = new Tournament(engines.get(0), engines.get(1), boardSize, openingPlies, seed);
+        TournamentStatistics statistics = sprt
+                ? new TournamentStatistics(elo0, elo1, DEFAULT_SPRT_ALPHA, DEFAULT_SPRT_BETA)
+                : new TournamentStatistics();
+        System.out.println(engines.get(0).name() + " vs " + engines.get(1).name());
+        long startTime = System.nanoTime();
+        tournament.run(gamesCount, threads, statistics, sprt);
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.out.println(statistics);
+        System.out.printf("%d games in %.1f s, %.2f games/s%n",
+                statistics.getGamesCount(), seconds, statistics.getGamesCount() / seconds);
+    }
+
+    /**
+     * Creates a tournament.
+     * @param firstEngine The configuration of the first engine.
+     * @param secondEngine The configuration of the second engine.
+     * @param boardSize The size of the board.
+     * @param openingPlies The number of random moves at the start of every game.
+     * @param seed The seed of random openings and engines.
+     */
+    public Tournament(EngineConfiguration firstEngine, EngineConfiguration secondEngine, int boardSize,
+            int openingPlies, long seed) {
+        this.firstEngine = firstEngine;
+        this.secondEngine = secondEngine;
+        this.boardSize = boardSize;
+        this.openingPlies = openingPlies;
+        this.seed = seed;
+    }
+
+    /**
+     * Plays games of the tournament.
+     * @param gamesCount The number of games, rounded up to an even number.
+     * @param threads The number of threads playing games.
+     * @param statistics The statistics where results are added.
+     * @param sprt An indicator whether the tournament stops when the SPRT decides.
+     * @throws InterruptedException If the tournament is interrupted.
+     */
+    public void run(int gamesCount, int threads, TournamentStatistics statistics, boolean sprt)
+            throws InterruptedException {
+        int pairsCount = (gamesCount + 1) / 2;
+        AtomicInteger threadsCount = new AtomicInteger();
+        List<AIEngine> createdEngines = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<Player[]> threadPlayers = ThreadLocal.withInitial(() -> {
+            long engineSeed = seed + threadsCount.incrementAndGet();
+            Player[] players = {
+                new Player(firstEngine.createEngine(engineSeed), firstEngine.createMoveChooser()),
+                new Player(secondEngine.createEngine(engineSeed), secondEngine.createMoveChooser())
+            };
+            for (Player player : players) {
+                createdEngines.add(player.engine());
+            }
+            return players;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int game = 0; game < pairsCount * 2; game++) {
+                int openingSeed = game / 2;
+                boolean firstEngineStarts = game % 2 == 0;
+                results.add(executor.submit(() -> {
+                    if (sprt && statistics.getSprtResult() != TournamentStatistics.SprtResult.CONTINUE) {
+                        return;
+                    }
+                    Player[] players = threadPlayers.get();
+                    if (!firstEngineStarts) {
+                        players = new Player[] { players[1], players[0] };
+                    }
+                    playGame(players, openingSeed, firstEngineStarts, statistics);
+                    int played = statistics.getGamesCount();
+                    if (played % PROGRESS_INTERVAL == 0) {
+                        System.out.printf("%d games, score %.1f%%, Elo %+.1f%n",
+                                played, 100 * statistics.getScore(), statistics.getEloDifference());
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("A game failed", ex);
+        } finally {
+            executor.shutdownNow();
+            // Games still running after a failure use the engines until they end
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } finally {
+                createdEngines.forEach(AIEngine::close);
+            }
+        }
+    }
+
+    private static final int PROGRESS_INTERVAL = 100;
+    private static final int MAX_GAME_MOVES = 10_000;
+    private static final long OPENING_SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final EngineConfiguration firstEngine;
+    private final EngineConfiguration secondEngine;
+    private final int boardSize;
+    private final int openingPlies;
+    private final long seed;
+
+    /**
+     * Engine of a thread together with the chooser of its moves.
+     * @param engine The engine.
+     * @param moveChooser The chooser of moves using the engine.
+     */
+    private record Player(AIEngine engine, MoveChooser moveChooser) {}
+
+    /**
+     * Plays one game and adds its result to the statistics.
+     * @param players The engines and choosers of moves of players in the order of their IDs.
+     * @param openingSeed The seed of the random opening.
+     * @param firstEngineStarts An indicator whether the first engine is the first player.
+     * @param statistics The statistics where the result is added.
+     */
+    private void playGame(Player[] players, long openingSeed, boolean firstEngineStarts,
+            TournamentStatistics statistics) {
+        EngineConfiguration[] configurations = firstEngineStarts
+                ? new EngineConfiguration[] { firstEngine, secondEngine }
+                : new EngineConfiguration[] { secondEngine, firstEngine };
+        Random random = new Random(seed ^ openingSeed * OPENING_SEED_MULTIPLIER);
+        BoardState state = new BoardState(boardSize, GameModel.DEFAULT_PLAYERS_COUNT);
+        int playerId = 0;
+        int moves = 0;
+        while (moves < MAX_GAME_MOVES) {
+            BoardState nextState;
+            if (moves < openingPlies) {
+                List<BoardState> nextStates = MoveGenerator.generateAllMoves(state, playerId);
+                nextState = nextStates.get(random.nextInt(nextStates.size()));
+            } else {
+                Player player = players[playerId];
+                SearchResult result = player.moveChooser().choose(
+                        player.engine(), state, playerId, configurations[playerId].limits(), () -> false);
+                SquarePosition target = result.target();
+                nextState = MoveGenerator.generateMove(state, playerId, target);
+            }
+            state = nextState;
+            moves++;
+            if (state.isTerminal()) {
+                boolean firstEngineWins = (playerId == 0) == firstEngineStarts;
+                if (firstEngineWins) {
+                    statistics.addWin(moves);
+                } else {
+                    statistics.addLoss(moves);
+                }
+                return;
+            }
+            playerId = state.getNextPlayerId(playerId);
+        }
+        statistics.addDraw(moves);
+    }
+}
@@ -0,0 +1,223 @@
+package atoms.tools;
+
+/**
+ * Results of games between two engines from the point of view of the first engine.
+ *
+ * Besides the score, the statistics estimate the Elo difference of the engines
+ * with its 95% confidence interval, and evaluate a sequential probability ratio
+ * test (SPRT) of the hypotheses that the difference is elo0 or elo1. The test
+ * uses the normal approximation of the log-likelihood ratio, so it decides
+ * after fewer games than a fixed-length test with the same error rates.
+ *
+ * Methods are synchronized, games can be added from more threads.
+ */
+public final class TournamentStatistics {
+
+    /**
+     * Result of the sequential probability ratio test.
+     */
+    public enum SprtResult {
+        /**
+         * The difference is elo1, the first engine is stronger.
+         */
+        ACCEPT_H1,
+        /**
+         * The difference is elo0, the first engine is not stronger.
+         */
+        ACCEPT_H0,
+        /**
+         * More games are needed.
+         */
+        CONTINUE
+    }
+
+    /**
+     * Creates empty statistics without the sequential probability ratio test.
+     */
+    public TournamentStatistics() {
+        elo0 = 0;
+        elo1 = 0;
+        lowerBound = Double.NEGATIVE_INFINITY;
+        upperBound = Double.POSITIVE_INFINITY;
+        sprt = false;
+    }
+
+    /**
+     * Creates empty statistics with the sequential probability ratio test.
+     * @param elo0 The Elo difference of the null hypothesis.
+     * @param elo1 The Elo difference of the alternative hypothesis.
+     * @param alpha The probability of accepting H1 when H0 is true.
+     * @param beta The probability of accepting H0 when H1 is true.
+     */
+    public TournamentStatistics(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        lowerBound = Math.log(beta / (1 - alpha));
+        upperBound = Math.log((1 - beta) / alpha);
+        sprt = true;
+    }
+
+    /**
+     * Adds a won game of the first engine.
+     * @param moves The number of moves of the game.
+     */
+    public synchronized void addWin(int moves) {
+        wins++;
+        totalMoves += moves;
+    }
+
+    /**
+     * Adds a lost game of the first engine.
+     * @param moves The number of moves of the game.
+     */
+    public synchronized void addLoss(int moves) {
+        losses++;
+        totalMoves += moves;
+    }
+
+    /**
+     * Adds a drawn game.
+     * @param moves The number of moves of the game.
+     */
+    public synchronized void addDraw(int moves) {
+        draws++;
+        totalMoves += moves;
+    }
+
+    /**
+     * Gets the number of played games.
+     * @return The number of played games.
+     */
+    public synchronized int getGamesCount() {
+        return wins + losses + draws;
+    }
+
+    /**
+     * Gets the score of the first engine, where a win counts as one and a draw as one half.
+     * @return The score between zero and one, or one half if no game was played.
+     */
+    public synchronized double getScore() {
+        int games = getGamesCount();
+        return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+    }
+
+    /**
+     * Estimates the Elo difference between the first and the second engine.
+     * @return The Elo difference.
+     */
+    public synchronized double getEloDifference() {
+        return scoreToElo(getScore());
+    }
+
+    /**
+     * Estimates the half-width of the 95% confidence interval of the Elo difference.
+     * @return The error margin of the Elo difference.
+     */
+    public synchronized double getEloErrorMargin() {
+        int games = getGamesCount();
+        if (games == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double score = getScore();
+        double deviation = Math.sqrt(getScoreVariance(score) / games);
+        double lower = scoreToElo(score - CONFIDENCE_95 * deviation);
+        double upper = scoreToElo(score + CONFIDENCE_95 * deviation);
+        return (upper - lower) / 2;
+    }
+
+    /**
+     * Computes the log-likelihood ratio of the hypotheses elo1 and elo0.
+     * @return The log-likelihood ratio, zero if the results do not allow an estimate.
+     */
+    public synchronized double getLogLikelihoodRatio() {
+        int games = getGamesCount();
+        double score = getScore();
+        double variance = getScoreVariance(score);
+        if (games == 0 || variance == 0) {
+            return 0;
+        }
+        double score0 = eloToScore(elo0);
+        double score1 = eloToScore(elo1);
+        return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * Evaluates the sequential probability ratio test.
+     * @return The result of the test, always {@link SprtResult#CONTINUE} without the test.
+     */
+    public synchronized SprtResult getSprtResult() {
+        double ratio = getLogLikelihoodRatio();
+        if (ratio >= upperBound) {
+            return SprtResult.ACCEPT_H1;
+        } else if (ratio <= lowerBound) {
+            return SprtResult.ACCEPT_H0;
+        }
+        return SprtResult.CONTINUE;
+    }
+
+    /**
+     * Creates a report of the statistics, the result of the test is reported only if the test is used.
+     * @return The report.
+     */
+    @Override
+    public synchronized String toString() {
+        int games = getGamesCount();
+        String report = String.format(
+                "Games: %d, wins: %d, losses: %d, draws: %d, score: %.1f%%, average length: %.1f moves%n"
+                        + "Elo difference: %+.1f +/- %.1f",
+                games, wins, losses, draws, 100 * getScore(), games == 0 ? 0.0 : (double)totalMoves / games,
+                getEloDifference(), getEloErrorMargin());
+        if (!sprt) {
+            return report;
+        }
+        return report + String.format("%nSPRT [%.1f, %.1f]: LLR %.2f [%.2f, %.2f], %s",
+                elo0, elo1, getLogLikelihoodRatio(), lowerBound, upperBound, getSprtResult());
+    }
+
+    private static final double CONFIDENCE_95 = 1.959964;
+    // Scores of zero and one correspond to infinite differences
+    private static final double MIN_SCORE = 1e-6;
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+    private final boolean sprt;
+    private int wins;
+    private int losses;
+    private int draws;
+    private long totalMoves;
+
+    /**
+     * Computes the variance of the result of one game.
+     * @param score The mean score.
+     * @return The variance of the result of one game.
+     */
+    private double getScoreVariance(double score) {
+        int games = getGamesCount();
+        if (games == 0) {
+            return 0;
+        }
+        return (wins * (1 - score) * (1 - score) + losses * score * score + draws * (0.5 - score) * (0.5 - score))
+                / games;
+    }
+
+    /**
+     * Converts a score to the Elo difference.
+     * @param score The expected score.
+     * @return The Elo difference.
+     */
+    private static double scoreToElo(double score) {
+        double clampedScore = Math.min(Math.max(score, MIN_SCORE), 1 - MIN_SCORE);
+        return -400 * Math.log10(1 / clampedScore - 1);
+    }
+
+    /**
+     * Converts the Elo difference to the expected score.
+     * @param elo The Elo difference.
+     * @return The expected score.
+     */
+    private static double eloToScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * Contains command line tools that are run offline, outside of the game.
+ *
+ * The opening book builder searches opening positions deeply and writes
+ * their best moves into a file that is used by the game model.
+ *
+ * The tournament plays many games between two configurations of engines
+ * in parallel and reports their Elo difference, so that changes of engines
+ * can be checked to play at least as well as before.
+ *
+ * Perft counts positions reachable by a number of moves and compares them
+ * with expected counts, so that changes of the move generator can be checked
+ * to generate the same moves as before.
+ */
+package atoms.tools;
@@ -1,6 +1,7 @@
 package atoms.view;
 
 import atoms.model.Board;
+import atoms.model.GameModel;
 import atoms.model.Square;
 import atoms.model.SquarePosition;
 
@@ -11,35 +12,97 @@ import java.awt.RenderingHints;
 import java.awt.Rectangle;
 import java.awt.Color;
 import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
  * Panel with a board for the Exploding Atoms game.
+ *
+ * The board is rendered into an image of the whole board, which is only copied
+ * to the screen when the panel is painted. The image is rebuilt when the board
+ * or the size of the panel changes, otherwise only the squares passed to
+ * {@link #repaintSquares(List)} are rendered again. Squares are rendered from
+ * a cached image of the empty checkerboard and from sprites of atoms, one for
+ * each player and number of electrons, both created again only on resize.
+ * Electrons moving between squares are drawn over the image.
  */
 public class BoardPanel extends JPanel {
 
     /**
-     * Sets the board.
+     * Sets the board and repaints the whole panel, the panel only reads the board.
+     * Later changes of the board are shown after repainting the changed squares.
      * @param board The board.
      */
     public void setBoard(Board board) {
         this.board = board;
+        frameValid = false;
+        repaint();
     }
 
     /**
-     * Sets target squares to mark.
+     * Renders the given squares again and schedules their repainting, the rest of the board is not repainted.
+     * @param squarePositions The positions of the squares to repaint.
+     */
+    public void repaintSquares(List<SquarePosition> squarePositions) {
+        if (squarePositions.isEmpty() || board == null) {
+            return;
+        }
+        int squareSize = getSquareSize();
+        if (!frameValid || squareSize != renderedSquareSize) {
+            frameValid = false;
+            repaint();
+            return;
+        }
+        int minRow = Integer.MAX_VALUE;
+        int minColumn = Integer.MAX_VALUE;
+        int maxRow = Integer.MIN_VALUE;
+        int maxColumn = Integer.MIN_VALUE;
+        Graphics2D g = frameImage.createGraphics();
+        try {
+            for (SquarePosition position : squarePositions) {
+                renderSquare(g, position.row(), position.column());
+                minRow = Math.min(minRow, position.row());
+                minColumn = Math.min(minColumn, position.column());
+                maxRow = Math.max(maxRow, position.row());
+                maxColumn = Math.max(maxColumn, position.column());
+            }
+        } finally {
+            g.dispose();
+        }
+        repaint(minColumn * squareSize, minRow * squareSize,
+                (maxColumn - minColumn + 1) * squareSize, (maxRow - minRow + 1) * squareSize);
+    }
+
+    /**
+     * Sets target squares to mark, they are shown after repainting them.
      * @param targets The target squares to mark.
      */
     public void setTargets(List<SquarePosition> targets) {
-        this.targets = targets;
+        setMarks(targetIndices, targets);
     }
 
     /**
-     * Sets squares with explosions.
+     * Sets squares with explosions, they are shown after repainting them.
      * @param explosions Squares with explosions.
      */
     public void setExplosions(List<SquarePosition> explosions) {
-        this.explosions = explosions;
+        setMarks(explosionIndices, explosions);
+    }
+
+    /**
+     * Sets electrons moving from exploding squares to their neighbours and repaints them.
+     * @param sources The exploding squares the electrons move from, or null if no electrons move.
+     * @param playerId The ID of the player who owns the electrons.
+     * @param progress The fraction of the distance the electrons moved, from zero to one.
+     */
+    public void setMovingElectrons(List<SquarePosition> sources, int playerId, double progress) {
+        repaintMovingElectrons();
+        movingElectronSources = sources;
+        movingElectronsPlayerId = playerId;
+        movingElectronsProgress = progress;
+        repaintMovingElectrons();
     }
 
     /**
@@ -65,25 +128,39 @@ public class BoardPanel extends JPanel {
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        if (board == null) {
+        if (board == null || getSquareSize() == 0) {
             return;
         }
 
-        setAntialiasing(g);
-        drawSquares(g);
-        drawExplosions(g);
-        drawTargets(g);
-        drawAtoms(g);
+        if (!frameValid || getSquareSize() != renderedSquareSize) {
+            renderFrame();
+        }
+        g.drawImage(frameImage, 0, 0, null);
+        if (movingElectronSources != null) {
+            drawMovingElectrons(g);
+        }
     }
 
     private final static Color whiteSquareColor = Color.WHITE;
     private final static Color blackSquareColor = Color.BLACK;
-    private final static Color[] playerColors = new Color[] { Color.CYAN, Color.GREEN };
+    private final static Color[] playerColors = new Color[] { Color.CYAN, Color.GREEN, Color.MAGENTA, Color.ORANGE };
     private final static Color explosionSquareColor = new Color(200, 0, 0);
     private final static Color targetSquareColor = new Color(200, 200, 0);
+    private final static int[] neighbourRowOffsets = new int[] { -1, 0, 1, 0 };
+    private final static int[] neighbourColumnOffsets = new int[] { 0, 1, 0, -1 };
     private Board board;
-    private List<SquarePosition> explosions;
-    private List<SquarePosition> targets;
+    private final BitSet explosionIndices = new BitSet();
+    private final BitSet targetIndices = new BitSet();
+    private BufferedImage frameImage;
+    private BufferedImage checkerboardImage;
+    private BufferedImage[][] atomSprites = new BufferedImage[playerColors.length][];
+    private BufferedImage[] electronSprites = new BufferedImage[playerColors.length];
+    private List<SquarePosition> movingElectronSources;
+    private int movingElectronsPlayerId;
+    private double movingElectronsProgress;
+    private boolean frameValid;
+    private int renderedSquareSize;
+    private int renderedBoardSize;
 
     /**
      * Sets antialiasing for the given graphics.
@@ -98,109 +175,229 @@ public class BoardPanel extends JPanel {
     }
 
     /**
-     * Draws squares of the board.
-     * @param g
+     * Replaces marks of squares by the given squares.
+     * @param indices The indices of marked squares to replace.
+     * @param squarePositions The positions of the squares to mark, or null to clear the marks.
+     */
+    private void setMarks(BitSet indices, List<SquarePosition> squarePositions) {
+        indices.clear();
+        if (squarePositions == null) {
+            return;
+        }
+        for (SquarePosition position : squarePositions) {
+            indices.set(getSquareIndex(position.row(), position.column()));
+        }
+    }
+
+    /**
+     * Gets the index of a square, marks of squares are kept by their indices.
+     * @param i The row of the square.
+     * @param j The column of the square.
+     * @return The index of the square.
+     */
+    private int getSquareIndex(int i, int j) {
+        return i * GameModel.MAX_BOARD_SIZE + j;
+    }
+
+    /**
+     * Renders the whole board into the frame image, the images are created again if the size changed.
      */
-    private void drawSquares(Graphics g) {
-        for (int i = 0; i < board.getSize(); i++) {
-            for (int j = 0; j < board.getSize(); j++) {
-                Rectangle squareRect = getSquareRect(i, j);
-                Color color;
-                if (squareIsWhite(i, j)) {
-                    color = whiteSquareColor;
-                } else {
-                    color = blackSquareColor;
+    private void renderFrame() {
+        int squareSize = getSquareSize();
+        int boardSize = board.getSize();
+        if (squareSize != renderedSquareSize || boardSize != renderedBoardSize) {
+            int boardSideLength = squareSize * boardSize;
+            frameImage = new BufferedImage(boardSideLength, boardSideLength, BufferedImage.TYPE_INT_RGB);
+            checkerboardImage = createCheckerboardImage(squareSize, boardSize);
+            for (BufferedImage[] sprites : atomSprites) {
+                if (sprites != null) {
+                    Arrays.fill(sprites, null);
+                }
+            }
+            Arrays.fill(electronSprites, null);
+            renderedSquareSize = squareSize;
+            renderedBoardSize = boardSize;
+        }
+        Graphics2D g = frameImage.createGraphics();
+        try {
+            g.drawImage(checkerboardImage, 0, 0, null);
+            for (int i = 0; i < boardSize; i++) {
+                for (int j = 0; j < boardSize; j++) {
+                    if (explosionIndices.get(getSquareIndex(i, j)) || targetIndices.get(getSquareIndex(i, j))
+                            || board.getSquare(i, j).electronsCount() > 0) {
+                        renderSquare(g, i, j);
+                    }
                 }
-                g.setColor(color);
-                g.fillRect(squareRect.x, squareRect.y, squareRect.width, squareRect.height);
             }
+        } finally {
+            g.dispose();
         }
+        frameValid = true;
     }
 
     /**
-     * Gets the bounds of a square with the given coordinates.
+     * Creates the image of the empty checkerboard.
+     * @param squareSize The size of a square.
+     * @param boardSize The number of squares in a row.
+     * @return The image of the checkerboard.
+     */
+    private static BufferedImage createCheckerboardImage(int squareSize, int boardSize) {
+        int boardSideLength = squareSize * boardSize;
+        BufferedImage image = new BufferedImage(boardSideLength, boardSideLength, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            for (int i = 0; i < boardSize; i++) {
+                for (int j = 0; j < boardSize; j++) {
+                    g.setColor(squareIsWhite(i, j) ? whiteSquareColor : blackSquareColor);
+                    g.fillRect(j * squareSize, i * squareSize, squareSize, squareSize);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Renders one square into the frame image: the square of the checkerboard, its mark and its atom.
+     * @param g Graphics object of the frame image.
      * @param i The row of the square.
      * @param j The column of the square.
-     * @return The bounds of the square.
      */
-    private Rectangle getSquareRect(int i, int j) {
-        int squareSize = getSquareSize();
+    private void renderSquare(Graphics2D g, int i, int j) {
+        int squareSize = renderedSquareSize;
         int x = j * squareSize;
         int y = i * squareSize;
-        return new Rectangle(x, y, squareSize, squareSize);
+        g.drawImage(checkerboardImage, x, y, x + squareSize, y + squareSize,
+                x, y, x + squareSize, y + squareSize, null);
+        int index = getSquareIndex(i, j);
+        if (targetIndices.get(index)) {
+            g.setColor(targetSquareColor);
+            g.fillRect(x, y, squareSize, squareSize);
+        } else if (explosionIndices.get(index)) {
+            g.setColor(explosionSquareColor);
+            g.fillRect(x, y, squareSize, squareSize);
+        }
+        Square square = board.getSquare(i, j);
+        if (square.electronsCount() > 0) {
+            g.drawImage(getAtomSprite(square.playerId(), square.electronsCount()), x, y, null);
+        }
     }
 
     /**
-     * Gets the size of a square.
-     * @return The size of a square.
+     * Gets the sprite of an atom, the sprite is created when it is used for the first time.
+     * @param playerId The ID of the player who owns the atom.
+     * @param electronsCount The number of electrons.
+     * @return The image of the atom with transparent background, it has the size of a square.
      */
-    private int getSquareSize() {
-        int boardSideLength = Math.min(this.getWidth(), this.getHeight());
-        return boardSideLength / board.getSize();
+    private BufferedImage getAtomSprite(int playerId, int electronsCount) {
+        BufferedImage[] sprites = atomSprites[playerId];
+        if (sprites == null || sprites.length <= electronsCount) {
+            sprites = sprites == null ? new BufferedImage[electronsCount + 1] : Arrays.copyOf(sprites, electronsCount + 1);
+            atomSprites[playerId] = sprites;
+        }
+        if (sprites[electronsCount] == null) {
+            int squareSize = renderedSquareSize;
+            BufferedImage sprite = new BufferedImage(squareSize, squareSize, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = sprite.createGraphics();
+            try {
+                setAntialiasing(g);
+                drawAtom(g, new Rectangle(0, 0, squareSize, squareSize), playerColors[playerId], electronsCount);
+            } finally {
+                g.dispose();
+            }
+            sprites[electronsCount] = sprite;
+        }
+        return sprites[electronsCount];
     }
 
     /**
-     * Checks if square with the given position is white.
-     * @param i The row.
-     * @param j The column.
-     * @return True if the square is white, otherwise false.
+     * Gets the sprite of an electron, the sprite is created when it is used for the first time.
+     * @param playerId The ID of the player who owns the electron.
+     * @return The image of the electron with transparent background.
      */
-    private static boolean squareIsWhite(int i, int j) {
-        if (i % 2 == 0) {
-            return j % 2 == 0;
-        } else {
-            return j % 2 == 1;
+    private BufferedImage getElectronSprite(int playerId) {
+        if (electronSprites[playerId] == null) {
+            int electronSize = renderedSquareSize / 4;
+            // The outline of the electron is one pixel larger than its size
+            int spriteSize = electronSize + 2;
+            BufferedImage sprite = new BufferedImage(spriteSize, spriteSize, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = sprite.createGraphics();
+            try {
+                setAntialiasing(g);
+                drawElectron(g, new Point(spriteSize / 2, spriteSize / 2), electronSize, playerColors[playerId]);
+            } finally {
+                g.dispose();
+            }
+            electronSprites[playerId] = sprite;
         }
+        return electronSprites[playerId];
     }
 
     /**
-     * Draws explosion squares.
+     * Draws electrons moving from exploding squares to their neighbours.
      * @param g Graphics object.
      */
-    private void drawExplosions(Graphics g) {
-        if (explosions != null) {
-            drawSquareList(g, explosions, explosionSquareColor);
+    private void drawMovingElectrons(Graphics g) {
+        BufferedImage sprite = getElectronSprite(movingElectronsPlayerId);
+        int squareSize = renderedSquareSize;
+        int boardSize = board.getSize();
+        for (SquarePosition source : movingElectronSources) {
+            for (int k = 0; k < neighbourRowOffsets.length; k++) {
+                int row = source.row() + neighbourRowOffsets[k];
+                int column = source.column() + neighbourColumnOffsets[k];
+                if (row < 0 || row >= boardSize || column < 0 || column >= boardSize) {
+                    continue;
+                }
+                double y = (source.row() + neighbourRowOffsets[k] * movingElectronsProgress + 0.5) * squareSize;
+                double x = (source.column() + neighbourColumnOffsets[k] * movingElectronsProgress + 0.5) * squareSize;
+                g.drawImage(sprite, (int)x - sprite.getWidth() / 2, (int)y - sprite.getHeight() / 2, null);
+            }
         }
     }
 
     /**
-     * Draws target squares.
-     * @param g Graphics object.
+     * Schedules repainting of the area of moving electrons, the exploding squares and their neighbours.
      */
-    private void drawTargets(Graphics g) {
-        if (targets != null) {
-            drawSquareList(g, targets, targetSquareColor);
+    private void repaintMovingElectrons() {
+        if (movingElectronSources == null || movingElectronSources.isEmpty() || board == null) {
+            return;
+        }
+        int minRow = Integer.MAX_VALUE;
+        int minColumn = Integer.MAX_VALUE;
+        int maxRow = Integer.MIN_VALUE;
+        int maxColumn = Integer.MIN_VALUE;
+        for (SquarePosition source : movingElectronSources) {
+            minRow = Math.min(minRow, source.row() - 1);
+            minColumn = Math.min(minColumn, source.column() - 1);
+            maxRow = Math.max(maxRow, source.row() + 1);
+            maxColumn = Math.max(maxColumn, source.column() + 1);
         }
+        int squareSize = getSquareSize();
+        repaint(minColumn * squareSize, minRow * squareSize,
+                (maxColumn - minColumn + 1) * squareSize, (maxRow - minRow + 1) * squareSize);
     }
 
     /**
-     * Draws a list of squares with the given color.
-     * @param g Graphics object.
-     * @param squarePositions The list of square positions.
-     * @param color The color the squares should be drawn with.
+     * Gets the size of a square.
+     * @return The size of a square.
      */
-    private void drawSquareList(Graphics g, List<SquarePosition> squarePositions, Color color) {
-        g.setColor(color);
-        for (SquarePosition position : squarePositions) {
-            Rectangle squareRect = getSquareRect(position.row(), position.column());
-            g.fillRect(squareRect.x, squareRect.y, squareRect.width, squareRect.height);
-        }
+    private int getSquareSize() {
+        int boardSideLength = Math.min(this.getWidth(), this.getHeight());
+        return boardSideLength / board.getSize();
     }
 
     /**
-     * Draws atoms.
-     * @param g Graphics object.
+     * Checks if square with the given position is white.
+     * @param i The row.
+     * @param j The column.
+     * @return True if the square is white, otherwise false.
      */
-    private void drawAtoms(Graphics g) {
-        for (int i = 0; i < board.getSize(); i++) {
-            for (int j = 0; j < board.getSize(); j++) {
-                Square square = board.getSquare(i, j);
-                if (square.electronsCount() > 0) {
-                    Rectangle squareRect = getSquareRect(i, j);
-                    Color color = playerColors[square.playerId()];
-                    drawAtom(g, squareRect, color, square.electronsCount());
-                }
-            }
+    private static boolean squareIsWhite(int i, int j) {
+        if (i % 2 == 0) {
+            return j % 2 == 0;
+        } else {
+            return j % 2 == 1;
         }
     }
 
@@ -211,7 +408,7 @@ public class BoardPanel extends JPanel {
      * @param color The color of electrons.
      * @param electronsCount The number of electrons.
      */
-    private void drawAtom(Graphics g, Rectangle squareRect, Color color, int electronsCount) {
+    private static void drawAtom(Graphics g, Rectangle squareRect, Color color, int electronsCount) {
         int electronSize = squareRect.width / 4;
         Point squareCenter = new Point(
                 squareRect.x + squareRect.width / 2,
@@ -234,7 +431,7 @@ public class BoardPanel extends JPanel {
      * @param size The size of the electron.
      * @param color The color of the electron.
      */
-    private void drawElectron(Graphics g, Point center, int size, Color color) {
+    private static void drawElectron(Graphics g, Point center, int size, Color color) {
         int x = center.x - size / 2;
         int y = center.y - size / 2;
         g.setColor(color);
@@ -7,10 +7,20 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Main frame of the application.
+ *
+ * Moves of AI players are searched on a background thread, and only the result
+ * is passed back to the event dispatch thread, which performs the move and
+ * animates it by a {@link MoveAnimation}. Quitting a game stops its search,
+ * and the model is closed on the background thread after the search ends.
  */
 public final class MainFrame extends JFrame {
 
@@ -21,7 +31,12 @@ public final class MainFrame extends JFrame {
         setTitle(TITLE);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-        isAIPlayer = new boolean[GameModel.PLAYERS_COUNT];
+        isAIPlayer = new boolean[GameModel.MAX_PLAYERS_COUNT];
+        aiSearchLimits = new SearchLimits[GameModel.MAX_PLAYERS_COUNT];
+        Arrays.fill(aiSearchLimits, GameModel.DEFAULT_SEARCH_LIMITS);
+        aiEngineTypes = new EngineType[GameModel.MAX_PLAYERS_COUNT];
+        Arrays.fill(aiEngineTypes, GameModel.DEFAULT_ENGINE_TYPE);
+        openingBook = loadOpeningBook();
         setLayout(new BorderLayout());
         cardLayout = new CardLayout();
         contentPanel = new JPanel(cardLayout);
@@ -40,11 +55,22 @@ public final class MainFrame extends JFrame {
     private static final String GAME_PANEL_NAME = "gamePanel";
     private static final String HUMAN_PLAYER = "Human";
     private static final String AI_PLAYER = "Computer";
+    private static final String MONTE_CARLO_AI_PLAYER = "Computer (MCTS)";
+    private static final String[] AI_THINKING_TIME_NAMES = { "Depth 3", "0.5 s", "1 s", "2 s", "5 s" };
+    private static final SearchLimits[] AI_THINKING_TIME_LIMITS = {
+            GameModel.DEFAULT_SEARCH_LIMITS,
+            SearchLimits.ofTime(500),
+            SearchLimits.ofTime(1000),
+            SearchLimits.ofTime(2000),
+            SearchLimits.ofTime(5000)
+    };
+    private static final Integer[] BOARD_SIZES = { 8, 12, 16, 24, 32, 48, 64 };
+    private static final Integer[] PLAYERS_COUNTS = { 2, 3, 4 };
     private static final Font fontNormal = new Font("Courier New", Font.PLAIN, 14);
     private static final Font fontHeading = new Font("Courier New", Font.BOLD, 32);
     private static final Dimension preferredFrameSize = new Dimension(640, 480);
     private static final EmptyBorder border = new EmptyBorder(10, 10, 10, 10);
-    private static final int DELAY_BETWEEN_MOVE_PHASES = 300;
+    private static final int MOVE_PHASE_DURATION = 600;
     private JPanel contentPanel;
     private CardLayout cardLayout;
     private JPanel menuPanel;
@@ -53,7 +79,43 @@ public final class MainFrame extends JFrame {
     private BoardPanel boardPanel;
     private GameModel gameModel;
     private JLabel[] electronCountLabels;
+    private JPanel[] playerSettingsPanels;
+    private int boardSize = GameModel.DEFAULT_BOARD_SIZE;
+    private int playersCount = GameModel.DEFAULT_PLAYERS_COUNT;
     private boolean[] isAIPlayer;
+    private SearchLimits[] aiSearchLimits;
+    private EngineType[] aiEngineTypes;
+    private OpeningBook openingBook;
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(MainFrame::createAIThread);
+    private MoveAnimation animation;
+
+    /**
+     * Loads the opening book from the default path.
+     * @return The opening book, or null if there is no valid book.
+     */
+    private static OpeningBook loadOpeningBook() {
+        Path path = GameModel.DEFAULT_OPENING_BOOK_PATH;
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return OpeningBook.open(path);
+        } catch (IOException ex) {
+            System.err.println("Cannot load the opening book: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Creates the daemon thread that searches moves of AI players.
+     * @param runnable The task of the thread.
+     * @return The thread.
+     */
+    private static Thread createAIThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "AI search");
+        thread.setDaemon(true);
+        return thread;
+    }
 
     /**
      * Creates a panel with the main menu.
@@ -67,11 +129,14 @@ public final class MainFrame extends JFrame {
         heading.setFont(fontHeading);
         heading.setHorizontalAlignment(SwingConstants.CENTER);
 
-        JPanel settingsPanel = new JPanel(new GridLayout(3, 1));
-        JPanel player1Settings = createPlayerSettingsPanel(0);
-        JPanel player2Settings = createPlayerSettingsPanel(1);
-        settingsPanel.add(player1Settings);
-        settingsPanel.add(player2Settings);
+        JPanel settingsPanel = new JPanel(new GridLayout(GameModel.MAX_PLAYERS_COUNT + 1, 1));
+        settingsPanel.add(createGameSettingsPanel());
+        playerSettingsPanels = new JPanel[GameModel.MAX_PLAYERS_COUNT];
+        for (int i = 0; i < GameModel.MAX_PLAYERS_COUNT; i++) {
+            playerSettingsPanels[i] = createPlayerSettingsPanel(i);
+            playerSettingsPanels[i].setVisible(i < playersCount);
+            settingsPanel.add(playerSettingsPanels[i]);
+        }
 
         JPanel buttonsPanel = new JPanel();
         JButton playButton = new JButton("Play");
@@ -86,6 +151,36 @@ public final class MainFrame extends JFrame {
         return menuPanel;
     }
 
+    /**
+     * Creates a panel with the size of the board and the number of players.
+     * @return A panel with game settings.
+     */
+    private JPanel createGameSettingsPanel() {
+        JPanel gameSettings = new JPanel(new FlowLayout());
+        JLabel boardSizeLabel = new JLabel("Board:");
+        boardSizeLabel.setFont(fontNormal);
+        JComboBox<Integer> boardSizeComboBox = new JComboBox<>(BOARD_SIZES);
+        boardSizeComboBox.setSelectedItem(boardSize);
+        boardSizeComboBox.addItemListener(e -> boardSize = (Integer)boardSizeComboBox.getSelectedItem());
+        boardSizeComboBox.setFont(fontNormal);
+        JLabel playersCountLabel = new JLabel("Players:");
+        playersCountLabel.setFont(fontNormal);
+        JComboBox<Integer> playersCountComboBox = new JComboBox<>(PLAYERS_COUNTS);
+        playersCountComboBox.setSelectedItem(playersCount);
+        playersCountComboBox.addItemListener(e -> {
+            playersCount = (Integer)playersCountComboBox.getSelectedItem();
+            for (int i = 0; i < playerSettingsPanels.length; i++) {
+                playerSettingsPanels[i].setVisible(i < playersCount);
+            }
+        });
+        playersCountComboBox.setFont(fontNormal);
+        gameSettings.add(boardSizeLabel);
+        gameSettings.add(boardSizeComboBox);
+        gameSettings.add(playersCountLabel);
+        gameSettings.add(playersCountComboBox);
+        return gameSettings;
+    }
+
     /**
      * Creates a panel with player settings.
      * @param playerId The ID of the player.
@@ -95,18 +190,30 @@ public final class MainFrame extends JFrame {
         JPanel playerSettings = new JPanel(new FlowLayout());
         JLabel label = new JLabel("Player " + (playerId + 1) + ":");
         label.setFont(fontNormal);
-        JComboBox<String> playerTypeComboBox = new JComboBox<>(new String[] {HUMAN_PLAYER, AI_PLAYER});
+        JComboBox<String> playerTypeComboBox = new JComboBox<>(
+                new String[] {HUMAN_PLAYER, AI_PLAYER, MONTE_CARLO_AI_PLAYER});
         playerTypeComboBox.addItemListener(e -> {
             String playerType = (String)playerTypeComboBox.getSelectedItem();
             if (AI_PLAYER.equals(playerType)) {
                 isAIPlayer[playerId] = true;
+                aiEngineTypes[playerId] = EngineType.MINIMAX;
+            } else if (MONTE_CARLO_AI_PLAYER.equals(playerType)) {
+                isAIPlayer[playerId] = true;
+                aiEngineTypes[playerId] = EngineType.MONTE_CARLO;
             } else {
                 isAIPlayer[playerId] = false;
             }
         });
         playerTypeComboBox.setFont(fontNormal);
+        JComboBox<String> thinkingTimeComboBox = new JComboBox<>(AI_THINKING_TIME_NAMES);
+        thinkingTimeComboBox.addItemListener(e -> {
+            int index = thinkingTimeComboBox.getSelectedIndex();
+            aiSearchLimits[playerId] = AI_THINKING_TIME_LIMITS[index];
+        });
+        thinkingTimeComboBox.setFont(fontNormal);
         playerSettings.add(label);
         playerSettings.add(playerTypeComboBox);
+        playerSettings.add(thinkingTimeComboBox);
         return playerSettings;
     }
 
@@ -134,6 +241,14 @@ public final class MainFrame extends JFrame {
         boardPanel.addMouseListener(new MouseListener() {
             @Override
             public void mouseClicked(MouseEvent e) {
+                if (gameModel == null) {
+                    return;
+                }
+                if (isAnimating()) {
+                    // A click skips the rest of the animation
+                    animation.skipToEnd();
+                    return;
+                }
                 if (isAIPlayer[gameModel.getCurrentPlayerId()]) {
                     return;
                 }
@@ -167,10 +282,15 @@ public final class MainFrame extends JFrame {
             currentPlayerLabel.setText("Player " + currentPlayerNumber + " on the move");
         }
         BoardState currentState = gameModel.getCurrentState();
-        for (int i = 0; i < GameModel.PLAYERS_COUNT; i++) {
+        for (int i = 0; i < electronCountLabels.length; i++) {
+            if (i >= gameModel.getPlayersCount()) {
+                electronCountLabels[i].setText("");
+                continue;
+            }
             int playerNumber = playerNumberFromId(i);
             int electronsCount = currentState.getElectronsCount(i);
-            electronCountLabels[i].setText("Player " + playerNumber + ": " + electronsCount);
+            String status = gameModel.isEliminated(i) && !gameModel.isGameOver() ? " (out)" : "";
+            electronCountLabels[i].setText("Player " + playerNumber + ": " + electronsCount + status);
         }
     }
 
@@ -183,42 +303,6 @@ public final class MainFrame extends JFrame {
         return playerId + 1;
     }
 
-    /**
-     * Animates a move on the board.
-     * @param move The move to animate.
-     * @param markFirstPhase An indicator whether the first phase should be marked.
-     */
-    private void animateMove(DetailedMove move, boolean markFirstPhase) {
-        for (int i = 0; i < move.phases().size(); i++) {
-            DetailedMovePhase phase = move.phases().get(i);
-            if (i == 0) {
-                if (markFirstPhase) {
-                    drawExplosionsAndTargets(phase.explosions(), phase.targets());
-                    sleep(DELAY_BETWEEN_MOVE_PHASES);
-                    drawBoard(phase.boardAfter());
-                } else {
-                    drawBoard(phase.boardAfter());
-                }
-            } else {
-                sleep(DELAY_BETWEEN_MOVE_PHASES);
-                drawExplosionsAndTargets(phase.explosions(), phase.targets());
-                sleep(DELAY_BETWEEN_MOVE_PHASES);
-                drawBoard(phase.boardAfter());
-            }
-        }
-    }
-
-    /**
-     * Draws explosions and their targets.
-     * @param explosions Explosions to draw.
-     * @param targets Targets of explosions to draw.
-     */
-    private void drawExplosionsAndTargets(List<SquarePosition> explosions, List<SquarePosition> targets) {
-        boardPanel.setExplosions(explosions);
-        boardPanel.setTargets(targets);
-        boardPanel.paintImmediately(0, 0, boardPanel.getWidth(), boardPanel.getHeight());
-    }
-
     /**
      * Draws a board.
      * @param board The board to draw.
@@ -227,18 +311,7 @@ public final class MainFrame extends JFrame {
         boardPanel.setExplosions(null);
         boardPanel.setTargets(null);
         boardPanel.setBoard(board);
-        boardPanel.paintImmediately(0, 0, boardPanel.getWidth(), boardPanel.getHeight());
-    }
-
-    /**
-     * Makes the current thread sleep for a certain amount of time.
-     * @param milliseconds The number of milliseconds the thread should sleep.
-     */
-    private void sleep(int milliseconds) {
-        try {
-            Thread.sleep(milliseconds);
-        } catch (InterruptedException ex) {
-        }
+        boardPanel.repaint();
     }
 
     /**
@@ -249,14 +322,14 @@ public final class MainFrame extends JFrame {
         JPanel gameControlPanel = new JPanel(new GridLayout(2, 1));
         gameControlPanel.setBorder(border);
 
-        JPanel statusPanel = new JPanel(new GridLayout(4, 1));
+        JPanel statusPanel = new JPanel(new GridLayout(GameModel.MAX_PLAYERS_COUNT + 2, 1));
         JLabel statusHeading = new JLabel("Status");
         statusHeading.setFont(fontHeading);
         currentPlayerLabel = new JLabel();
-        electronCountLabels = new JLabel[GameModel.PLAYERS_COUNT];
+        electronCountLabels = new JLabel[GameModel.MAX_PLAYERS_COUNT];
         statusPanel.add(statusHeading);
         statusPanel.add(currentPlayerLabel);
-        for (int i = 0; i < GameModel.PLAYERS_COUNT; i++) {
+        for (int i = 0; i < GameModel.MAX_PLAYERS_COUNT; i++) {
             JLabel electronCountLabel = new JLabel();
             electronCountLabels[i] = electronCountLabel;
             statusPanel.add(electronCountLabel);
@@ -276,13 +349,18 @@ public final class MainFrame extends JFrame {
      * Starts a game.
      */
     private void playGame() {
-        gameModel = new GameModel();
+        gameModel = new GameModel(boardSize, playersCount);
+        for (int i = 0; i < playersCount; i++) {
+            gameModel.setSearchLimits(i, aiSearchLimits[i]);
+            gameModel.setEngineType(i, aiEngineTypes[i]);
+        }
+        gameModel.setOpeningBook(openingBook);
         Board board = gameModel.getCurrentState().getBoard();;
         drawBoard(board);
         updateGameStatus();
         cardLayout.show(contentPanel, GAME_PANEL_NAME);
         if (isCurrentPlayerAI()) {
-            SwingUtilities.invokeLater(this::moveAsAIPlayer);
+            moveAsAIPlayer();
         }
     }
 
@@ -302,14 +380,34 @@ public final class MainFrame extends JFrame {
     }
 
     /**
-     * Performs a move as an AI player.
+     * Starts a search for a move of an AI player on the background thread,
+     * the move is performed on the event dispatch thread when the search ends.
      */
     private void moveAsAIPlayer() {
         if (gameModel.isGameOver()) {
             return;
         }
-        DetailedMove move = gameModel.performAIMove();
-        sleep(DELAY_BETWEEN_MOVE_PHASES);
+        GameModel searchedModel = gameModel;
+        aiExecutor.execute(() -> {
+            SearchResult result = searchedModel.searchAIMove();
+            SwingUtilities.invokeLater(() -> finishAIMove(searchedModel, result));
+        });
+    }
+
+    /**
+     * Performs a move found by a search of an AI player, unless the game was quit meanwhile.
+     * @param searchedModel The model of the game where the move was searched.
+     * @param result The result of the search.
+     */
+    private void finishAIMove(GameModel searchedModel, SearchResult result) {
+        if (searchedModel != gameModel || result == null) {
+            return;
+        }
+        DetailedMove move = gameModel.performAIMove(result);
+        if (!gameModel.isGameOver() && !isCurrentPlayerAI()) {
+            // The human player thinks during the animation too
+            gameModel.startPondering(playerId -> isAIPlayer[playerId], aiExecutor);
+        }
         performMove(move, true);
     }
 
@@ -319,11 +417,21 @@ public final class MainFrame extends JFrame {
      * @param markFirstPhase An indicator whether the first phase should be marked.
      */
     private void performMove(DetailedMove move, boolean markFirstPhase) {
-        animateMove(move, markFirstPhase);
-        updateGameStatus();
-        if (isCurrentPlayerAI()) {
-            SwingUtilities.invokeLater(this::moveAsAIPlayer);
-        }
+        animation = new MoveAnimation(boardPanel, move, markFirstPhase, MOVE_PHASE_DURATION, () -> {
+            updateGameStatus();
+            if (isCurrentPlayerAI()) {
+                moveAsAIPlayer();
+            }
+        });
+        animation.start();
+    }
+
+    /**
+     * Checks whether a move is being animated.
+     * @return True if a move is being animated, otherwise false.
+     */
+    private boolean isAnimating() {
+        return animation != null && animation.isRunning();
     }
 
     /**
@@ -338,6 +446,14 @@ public final class MainFrame extends JFrame {
      * Quits the current game.
      */
     private void quitGame() {
+        if (animation != null) {
+            animation.stop();
+        }
+        GameModel quitModel = gameModel;
+        gameModel = null;
+        quitModel.stopAIMove();
+        // Runs after a running search, so that the threads of the search are not stopped under it
+        aiExecutor.execute(quitModel::close);
         cardLayout.show(contentPanel, MENU_PANEL_NAME);
     }
 }
@@ -0,0 +1,163 @@
+package atoms.view;
+
+import atoms.model.DetailedMove;
+import atoms.model.DetailedMoveCursor;
+import atoms.model.DetailedMovePhase;
+import atoms.model.SquareChange;
+import atoms.model.SquarePosition;
+
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Animation of a move on a board panel driven by a frame clock.
+ *
+ * A Swing timer shows a frame about sixty times per second on the event dispatch
+ * thread. Every phase of the move lasts the same time: first the explosions and
+ * targets of the phase are marked, then electrons move from the explosions to
+ * the targets, and at the end the changes of the phase are applied to the board.
+ * What a frame shows depends only on the time since the start of the animation,
+ * so when frames are late or phases are shorter than a frame, all phases that
+ * ended meanwhile are applied together in one frame. Moves with more than
+ * {@link #SPEED_UP_PHASES_COUNT} phases are sped up to last as long as a move
+ * with that many phases, so long chain reactions never hold up the game.
+ */
+final class MoveAnimation {
+
+    /**
+     * Creates an animation of a move, the panel must show the board before the move.
+     * @param boardPanel The panel where the move is animated.
+     * @param move The move to animate.
+     * @param markFirstPhase An indicator whether the first phase should be marked,
+     * otherwise the first phase is shown immediately.
+     * @param phaseDuration The duration of a phase in milliseconds, before the move is sped up.
+     * @param onFinished The action run on the event dispatch thread when the animation ends,
+     * it is not run if the animation is stopped.
+     */
+    MoveAnimation(BoardPanel boardPanel, DetailedMove move, boolean markFirstPhase, int phaseDuration, Runnable onFinished) {
+        this.boardPanel = boardPanel;
+        this.move = move;
+        this.markFirstPhase = markFirstPhase;
+        this.onFinished = onFinished;
+        cursor = move.cursor();
+        int phasesCount = move.phases().size();
+        long durationNanos = phaseDuration * NANOS_PER_MILLI;
+        if (phasesCount > SPEED_UP_PHASES_COUNT) {
+            durationNanos = durationNanos * SPEED_UP_PHASES_COUNT / phasesCount;
+        }
+        phaseDurationNanos = Math.max(1, durationNanos);
+        timer = new Timer(FRAME_DELAY, e -> showFrame());
+    }
+
+    /**
+     * Starts the animation.
+     */
+    void start() {
+        boardPanel.setBoard(cursor.getBoard());
+        startTime = System.nanoTime();
+        if (!markFirstPhase) {
+            startTime -= phaseDurationNanos;
+        }
+        running = true;
+        showFrame();
+        if (running) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Shows the board after the move at once and ends the animation, running the action at its end.
+     */
+    void skipToEnd() {
+        if (!running) {
+            return;
+        }
+        showPhases(move.phases().size(), 0);
+        stop();
+        onFinished.run();
+    }
+
+    /**
+     * Stops the animation without running the action at its end.
+     */
+    void stop() {
+        timer.stop();
+        running = false;
+    }
+
+    /**
+     * Checks whether the animation is running.
+     * @return True if the animation is running, otherwise false.
+     */
+    boolean isRunning() {
+        return running;
+    }
+
+    private static final int FRAME_DELAY = 16;
+    private static final int SPEED_UP_PHASES_COUNT = 8;
+    private static final double MARKED_PHASE_FRACTION = 0.5;
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    private final BoardPanel boardPanel;
+    private final DetailedMove move;
+    private final boolean markFirstPhase;
+    private final Runnable onFinished;
+    private final DetailedMoveCursor cursor;
+    private final long phaseDurationNanos;
+    private final Timer timer;
+    private long startTime;
+    private boolean running;
+    private DetailedMovePhase markedPhase;
+
+    /**
+     * Shows the frame for the current time and ends the animation after the last phase.
+     */
+    private void showFrame() {
+        long elapsedNanos = System.nanoTime() - startTime;
+        long finishedPhasesCount = elapsedNanos / phaseDurationNanos;
+        if (finishedPhasesCount >= move.phases().size()) {
+            skipToEnd();
+            return;
+        }
+        double phaseProgress = (double)(elapsedNanos % phaseDurationNanos) / phaseDurationNanos;
+        showPhases((int)finishedPhasesCount, phaseProgress);
+    }
+
+    /**
+     * Applies finished phases to the board of the panel and shows the phase in progress.
+     * @param finishedPhasesCount The number of phases that should be applied.
+     * @param phaseProgress The elapsed fraction of the phase in progress, from zero to one.
+     */
+    private void showPhases(int finishedPhasesCount, double phaseProgress) {
+        List<DetailedMovePhase> phases = move.phases();
+        List<SquarePosition> changedSquares = new ArrayList<>();
+        while (cursor.getPhaseIndex() + 1 < finishedPhasesCount) {
+            cursor.nextPhase();
+            for (SquareChange change : phases.get(cursor.getPhaseIndex()).changes()) {
+                changedSquares.add(change.position());
+            }
+        }
+        DetailedMovePhase phase = finishedPhasesCount < phases.size() ? phases.get(finishedPhasesCount) : null;
+        if (phase != markedPhase) {
+            if (markedPhase != null) {
+                changedSquares.addAll(markedPhase.explosions());
+                changedSquares.addAll(markedPhase.targets());
+            }
+            markedPhase = phase;
+            boardPanel.setExplosions(phase != null ? phase.explosions() : null);
+            boardPanel.setTargets(phase != null ? phase.targets() : null);
+            if (phase != null) {
+                changedSquares.addAll(phase.explosions());
+                changedSquares.addAll(phase.targets());
+            }
+        }
+        boardPanel.repaintSquares(changedSquares);
+        if (phase != null && !phase.explosions().isEmpty() && phaseProgress >= MARKED_PHASE_FRACTION) {
+            double moveProgress = (phaseProgress - MARKED_PHASE_FRACTION) / (1 - MARKED_PHASE_FRACTION);
+            boardPanel.setMovingElectrons(phase.explosions(), move.playerId(), moveProgress);
+        } else {
+            boardPanel.setMovingElectrons(null, move.playerId(), 0);
+        }
+    }
+}